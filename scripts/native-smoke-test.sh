@@ -0,0 +1,69 @@
+#!/usr/bin/env bash
+# Starts the native binary and the JVM jar one after another, registers and logs in a user against each,
+# and reports the time until the first successful login and the resident memory after it.
+#
+# Build both artifacts first:
+#   ./gradlew bootJar nativeCompile
+# The database configured in application.yml (or SPRING_DATASOURCE_* variables) must be reachable.
+set -euo pipefail
+
+PORT="${PORT:-8080}"
+BASE_URL="http://localhost:${PORT}/api"
+NATIVE_BINARY="${NATIVE_BINARY:-build/native/nativeCompile/security-template}"
+JAR="${JAR:-$(ls build/libs/*-SNAPSHOT.jar 2>/dev/null | grep -v plain | head -n 1)}"
+# Process of the running application. Global, as the exit trap runs outside of measure.
+APP_PID=""
+
+stop_app() {
+  if [[ -n "${APP_PID}" ]]; then
+    kill "${APP_PID}" 2>/dev/null || true
+    wait "${APP_PID}" 2>/dev/null || true
+    APP_PID=""
+  fi
+}
+trap stop_app EXIT
+
+now_ms() {
+  date +%s%3N
+}
+
+wait_for_login() {
+  local email="smoke-$(date +%s%N)@eralp.com"
+  local body="{\"email\":\"${email}\",\"password\":\"smoke-test-password\"}"
+  for _ in $(seq 1 600); do
+    if curl -sf -o /dev/null -H 'Content-Type: application/json' -d "${body}" "${BASE_URL}/auth/register"; then
+      curl -sf -H 'Content-Type: application/json' -d "${body}" "${BASE_URL}/auth/login" | grep -q '"token"'
+      return
+    fi
+    sleep 0.05
+  done
+  echo "Application did not answer within 30 seconds" >&2
+  return 1
+}
+
+measure() {
+  local name="$1"
+  shift
+  local started
+  started="$(now_ms)"
+  "$@" --server.port="${PORT}" > "build/${name}-smoke.log" 2>&1 &
+  APP_PID=$!
+  if ! wait_for_login; then
+    stop_app
+    echo "${name}: login failed, see build/${name}-smoke.log" >&2
+    exit 1
+  fi
+  local elapsed=$(( $(now_ms) - started ))
+  local rss
+  rss="$(awk '/VmRSS/ {print $2 " " $3}' "/proc/${APP_PID}/status")"
+  printf '%-8s first login after %6d ms, RSS %s\n' "${name}" "${elapsed}" "${rss}"
+  stop_app
+}
+
+mkdir -p build
+measure native "${NATIVE_BINARY}"
+if [[ -n "${JAR}" ]]; then
+  measure jvm java -jar "${JAR}"
+else
+  echo "JVM jar not found, run ./gradlew bootJar to compare" >&2
+fi
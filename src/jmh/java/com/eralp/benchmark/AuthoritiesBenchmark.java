@@ -0,0 +1,41 @@
+package com.eralp.benchmark;
+
+import com.eralp.entities.User;
+import com.eralp.entities.enums.Role;
+import com.eralp.repositories.projections.UserPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Measures resolving the authorities of {@link User} and {@link UserPrincipal}.
+ *
+ * @author Eralp Nitelik
+ */
+@State(Scope.Benchmark)
+public class AuthoritiesBenchmark {
+    private User user;
+    private UserPrincipal principal;
+
+    @Setup
+    public void setup() {
+        user = Benchmarks.user("admin@eralp.com", Set.of(Role.ADMIN, Role.MANAGER, Role.USER));
+        principal = new UserPrincipal(user.getId(), user.getEmail(), user.getRoles());
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> userAuthorities() {
+        return user.getAuthorities();
+    }
+
+    @Benchmark
+    public List<GrantedAuthority> principalAuthorities() {
+        return principal.getAuthorities();
+    }
+}
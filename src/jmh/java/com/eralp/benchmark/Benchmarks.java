@@ -0,0 +1,57 @@
+package com.eralp.benchmark;
+
+import com.eralp.configuration.metrics.AuthMetrics;
+import com.eralp.configuration.security.jwt.JwtService;
+import com.eralp.entities.User;
+import com.eralp.entities.enums.Role;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.Set;
+
+/**
+ * Creates the objects that benchmarks share, without starting the application context.
+ *
+ * @author Eralp Nitelik
+ */
+public final class Benchmarks {
+    /**
+     * Same as the default "jwt.secret" in application.yml.
+     */
+    public static final String SECRET_KEY = "546A576E5A7234753778214125442A472D4B6150645367566B58703273357638";
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Creates a {@link JwtService} with {@link #SECRET_KEY} as its secret.
+     *
+     * @param authMetrics metrics that the service records to
+     * @return the {@link JwtService}
+     */
+    public static JwtService jwtService(AuthMetrics authMetrics) {
+        JwtService jwtService = new JwtService(authMetrics);
+        Field secretKey = ReflectionUtils.findField(JwtService.class, "SECRET_KEY");
+        ReflectionUtils.makeAccessible(secretKey);
+        ReflectionUtils.setField(secretKey, jwtService, SECRET_KEY);
+        return jwtService;
+    }
+
+    /**
+     * Creates an active {@link User} as it would be loaded from the database.
+     *
+     * @param email email of the user
+     * @param roles roles of the user
+     * @return the {@link User}
+     */
+    public static User user(String email, Set<Role> roles) {
+        User user = User.builder()
+                .email(email)
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3X7B1vQxW0a1pHh3xX9QYxK")
+                .roles(roles)
+                .build();
+        user.setId("6f1c2a3e-8d4b-4b8e-9a51-0c7f3f2d9b11");
+        user.prePersist();
+        return user;
+    }
+}
@@ -0,0 +1,57 @@
+package com.eralp.benchmark;
+
+import com.eralp.configuration.locale.LocaleConfig;
+import com.eralp.configuration.locale.LocaleSelector;
+import com.eralp.dto.ApiResponse;
+import com.eralp.exceptions.ErrorResponseTemplates;
+import com.eralp.exceptions.ExceptionData;
+import com.eralp.exceptions.ExceptionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Locale;
+
+/**
+ * Compares writing an error body through {@link ErrorResponseTemplates} with building and serializing the object graph.
+ *
+ * @author Eralp Nitelik
+ */
+@State(Scope.Benchmark)
+public class ErrorResponseBenchmark {
+    private static final ExceptionType EXCEPTION_TYPE = ExceptionType.INVALID_TOKEN_DETECTED;
+    private static final String ERROR_MESSAGE = "JWT signature does not match locally computed signature.";
+
+    private final ApiResponse apiResponse = new ApiResponse();
+    private ObjectMapper objectMapper;
+    private ErrorResponseTemplates errorResponseTemplates;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        ResourceBundleMessageSource messageSource = new LocaleConfig().messageSource();
+        errorResponseTemplates = new ErrorResponseTemplates(objectMapper, messageSource);
+    }
+
+    @Benchmark
+    public byte[] objectGraph() throws Exception {
+        ApiResponse body = apiResponse.createErrorResponse(
+                EXCEPTION_TYPE,
+                ExceptionData.builder()
+                        .exceptionCode(EXCEPTION_TYPE.getCode())
+                        .defaultMessage(LocaleSelector.withCode(EXCEPTION_TYPE.getLocaleMessageCode()))
+                        .errorMessage(ERROR_MESSAGE)
+                        .build()
+        ).getBody();
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] precomputedTemplate() {
+        return errorResponseTemplates.render(EXCEPTION_TYPE, Locale.getDefault(), ERROR_MESSAGE);
+    }
+}
@@ -0,0 +1,47 @@
+package com.eralp.benchmark;
+
+import com.eralp.configuration.metrics.AuthMetrics;
+import com.eralp.configuration.security.jwt.JwtService;
+import com.eralp.entities.User;
+import com.eralp.entities.enums.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+
+/**
+ * Measures generating, parsing and validating tokens with {@link JwtService}.
+ *
+ * @author Eralp Nitelik
+ */
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = Benchmarks.jwtService(new AuthMetrics(new SimpleMeterRegistry(), false));
+        user = Benchmarks.user("user@eralp.com", Set.of(Role.USER));
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user.getEmail());
+    }
+}
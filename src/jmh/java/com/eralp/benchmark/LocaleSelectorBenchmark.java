@@ -0,0 +1,32 @@
+package com.eralp.benchmark;
+
+import com.eralp.configuration.locale.LocaleSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.context.i18n.LocaleContextHolder;
+
+import java.util.Locale;
+
+/**
+ * Measures resolving messages with {@link LocaleSelector} for the default locale, a supported locale and an unsupported one.
+ *
+ * @author Eralp Nitelik
+ */
+@State(Scope.Thread)
+public class LocaleSelectorBenchmark {
+    @Param({"default", "tr", "de"})
+    private String language;
+
+    @Setup
+    public void setup() {
+        LocaleContextHolder.setLocale("default".equals(language) ? Locale.getDefault() : Locale.forLanguageTag(language));
+    }
+
+    @Benchmark
+    public String withCode() {
+        return LocaleSelector.withCode("exception.authentication.not_logged_in");
+    }
+}
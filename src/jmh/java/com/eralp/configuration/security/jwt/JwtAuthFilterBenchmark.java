@@ -0,0 +1,95 @@
+package com.eralp.configuration.security.jwt;
+
+import com.eralp.benchmark.Benchmarks;
+import com.eralp.configuration.metrics.AuthMetrics;
+import com.eralp.configuration.security.authorization.AuthorizationRules;
+import com.eralp.configuration.security.degraded.DatabaseCircuitBreaker;
+import com.eralp.configuration.security.degraded.RevocationSnapshot;
+import com.eralp.configuration.security.opaque.OpaqueTokenStore;
+import com.eralp.entities.User;
+import com.eralp.entities.enums.Role;
+import com.eralp.repositories.TokenRepository;
+import com.eralp.repositories.UserRepository;
+import com.eralp.repositories.projections.TokenStatus;
+import com.eralp.repositories.projections.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Measures {@link JwtAuthFilter#doFilterInternal} for an authenticated request with mocked repositories,
+ * so only the token verification and the creation of the authentication are measured.
+ * "tokenMode" compares a JWT with an opaque token whose session is in memory.
+ * It is in the package of the filter to call the protected method directly.
+ *
+ * @author Eralp Nitelik
+ */
+@State(Scope.Thread)
+public class JwtAuthFilterBenchmark {
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    @Param({"jwt", "opaque"})
+    private String tokenMode;
+
+    private JwtAuthFilter jwtAuthFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuthMetrics authMetrics = new AuthMetrics(meterRegistry, false);
+        JwtService jwtService = Benchmarks.jwtService(authMetrics);
+        User user = Benchmarks.user("user@eralp.com", Set.of(Role.USER));
+        UserPrincipal principal = new UserPrincipal(user.getId(), user.getEmail(), user.getRoles());
+
+        // Stub-only mocks do not record invocations, so they do not add allocations to the measurement.
+        UserRepository userRepository = Mockito.mock(UserRepository.class, Mockito.withSettings().stubOnly());
+        Mockito.when(userRepository.findActivePrincipalByEmail(user.getEmail()))
+                .thenReturn(Optional.of(principal));
+        TokenRepository tokenRepository = Mockito.mock(TokenRepository.class, Mockito.withSettings().stubOnly());
+        AuthorizationRules authorizationRules = Mockito.mock(AuthorizationRules.class, Mockito.withSettings().stubOnly());
+        OpaqueTokenStore opaqueTokenStore = new OpaqueTokenStore(tokenRepository, Benchmarks.SECRET_KEY,
+                Duration.ofDays(1), Duration.ofMinutes(1));
+
+        String token;
+        if ("opaque".equals(tokenMode)) {
+            token = opaqueTokenStore.generate();
+            opaqueTokenStore.put(token, TokenDigest.of(token), principal);
+        } else {
+            token = jwtService.generateToken(user);
+            Mockito.when(tokenRepository.findStatusByDigest(TokenDigest.of(token)))
+                    .thenReturn(Optional.of(new TokenStatus(false, false)));
+        }
+        DatabaseCircuitBreaker databaseCircuitBreaker = new DatabaseCircuitBreaker(meterRegistry, 5,
+                Duration.ofSeconds(10), Duration.ofSeconds(2));
+        RevocationSnapshot revocationSnapshot = new RevocationSnapshot(tokenRepository, databaseCircuitBreaker, true,
+                Duration.ofDays(1));
+        jwtAuthFilter = new JwtAuthFilter(jwtService, userRepository, tokenRepository, authorizationRules, authMetrics,
+                opaqueTokenStore, databaseCircuitBreaker, revocationSnapshot);
+        request = new MockHttpServletRequest("GET", "/test/user");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object doFilterInternal() throws Exception {
+        jwtAuthFilter.doFilterInternal(request, response, NO_OP_CHAIN);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
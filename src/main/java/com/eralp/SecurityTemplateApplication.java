@@ -1,18 +1,33 @@
 package com.eralp;
 
+import com.eralp.configuration.aot.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * @author Eralp Nitelik
  */
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class SecurityTemplateApplication {
     /**
+     * Maximum number of startup steps that are buffered. Steps after the limit are dropped.
+     */
+    private static final int STARTUP_STEP_CAPACITY = 8192;
+
+    /**
+     * Starts the application with startup steps buffered, so they can be read from the "startup" actuator endpoint.
+     *
      * @author Eralp Nitelik
      */
     public static void main(String[] args) {
-        SpringApplication.run(SecurityTemplateApplication.class, args);
+        SpringApplication application = new SpringApplication(SecurityTemplateApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEP_CAPACITY));
+        application.run(args);
     }
 
 }
@@ -0,0 +1,121 @@
+package com.eralp.configuration.aot;
+
+import com.eralp.configuration.locale.LocaleConfig;
+import com.eralp.configuration.sql.SqlStatementListener;
+import com.eralp.dto.ApiResponse;
+import com.eralp.dto.request.ApiKeyRequestDto;
+import com.eralp.dto.request.BulkLogoutRequestDto;
+import com.eralp.dto.request.IntrospectionRequestDto;
+import com.eralp.dto.request.LoginRequestDto;
+import com.eralp.dto.request.RegisterRequestDto;
+import com.eralp.dto.response.ApiKeyResponseDto;
+import com.eralp.dto.response.IntrospectionResponseDto;
+import com.eralp.dto.response.LoginResponseDto;
+import com.eralp.dto.response.LogoutResponseDto;
+import com.eralp.dto.response.RegisterResponseDto;
+import com.eralp.entities.converter.RoleSetConverter;
+import com.eralp.exceptions.ExceptionData;
+import com.eralp.repositories.projections.ApiKeyCredential;
+import com.eralp.repositories.projections.TokenIntrospection;
+import com.eralp.repositories.projections.TokenSession;
+import com.eralp.repositories.projections.TokenStatus;
+import com.eralp.repositories.projections.UserPrincipal;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * This class registers the reflection and resource hints that a native image of the application needs.
+ * Spring infers hints for beans, entities and controller signatures during AOT processing.
+ * Types that are only reached by name, through {@link java.util.ServiceLoader} or through a bundle lookup are listed here.
+ *
+ * @author Eralp Nitelik
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+    /**
+     * JJWT api instantiates its implementation classes by name, so they must be reachable reflectively.
+     */
+    private static final List<String> JJWT_IMPLEMENTATION = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DefaultCompressionCodecResolver",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    );
+
+    /**
+     * Cache providers that are instantiated by name from the Hibernate properties.
+     */
+    private static final List<String> CACHE_PROVIDERS = List.of(
+            "org.ehcache.jsr107.EhcacheCachingProvider",
+            "org.hibernate.cache.jcache.internal.JCacheRegionFactory"
+    );
+
+    /**
+     * Types that are serialized or deserialized by Jackson. Response data is declared as Object,
+     * so these are not visible from the controller signatures. Their Lombok builders are registered too.
+     */
+    private static final List<Class<?>> DTOS = List.of(
+            ApiResponse.class,
+            ExceptionData.class,
+            LoginRequestDto.class,
+            RegisterRequestDto.class,
+            LoginResponseDto.class,
+            RegisterResponseDto.class,
+            IntrospectionRequestDto.class,
+            IntrospectionResponseDto.class,
+            BulkLogoutRequestDto.class,
+            LogoutResponseDto.class,
+            ApiKeyRequestDto.class,
+            ApiKeyResponseDto.class
+    );
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.resources().registerResourceBundle(LocaleConfig.MESSAGES_BASENAME);
+        hints.resources().registerPattern(LocaleConfig.MESSAGES_BASENAME + "*.properties");
+        hints.resources().registerPattern("ehcache.xml");
+        hints.resources().registerPattern("schema.sql");
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+        JJWT_IMPLEMENTATION.forEach(type -> hints.reflection().registerTypeIfPresent(classLoader, type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS));
+        CACHE_PROVIDERS.forEach(type -> hints.reflection().registerTypeIfPresent(classLoader, type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+
+        bindingRegistrar.registerReflectionHints(hints.reflection(), DTOS.toArray(Class<?>[]::new));
+        DTOS.forEach(type -> hints.reflection().registerType(builderOf(type),
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS));
+
+        // Constructor expressions and converters are instantiated by Hibernate.
+        hints.reflection().registerType(TokenStatus.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.reflection().registerType(UserPrincipal.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.reflection().registerType(TokenIntrospection.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.reflection().registerType(TokenSession.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.reflection().registerType(ApiKeyCredential.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        // Instantiated by Hibernate from "hibernate.session.events.auto".
+        hints.reflection().registerType(SqlStatementListener.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(RoleSetConverter.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+
+    /**
+     * Returns the reference of the builder that Lombok generates for the given type.
+     *
+     * @param type the class annotated with {@link lombok.Builder}
+     * @return {@link TypeReference} of the nested builder class
+     */
+    private static TypeReference builderOf(Class<?> type) {
+        return TypeReference.of(type.getName() + "$" + type.getSimpleName() + "Builder");
+    }
+}
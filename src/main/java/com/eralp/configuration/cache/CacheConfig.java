@@ -0,0 +1,62 @@
+package com.eralp.configuration.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class configures the metrics of the Hibernate second-level cache.
+ * Regions themselves are configured in ehcache.xml and bound to entities with {@link org.hibernate.annotations.Cache}.
+ *
+ * @author Eralp Nitelik
+ */
+@Configuration
+public class CacheConfig {
+    /**
+     * Creates a {@link MeterBinder} that exposes the hit ratio of every region in {@link CacheRegions} as a gauge.
+     * Only created when statistics are enabled with "cache.statistics", since no values are collected otherwise.
+     *
+     * @param entityManagerFactory the factory that owns the second-level cache
+     * @return a {@link MeterBinder} that registers one gauge per cache region
+     * @author Eralp Nitelik
+     */
+    @Bean
+    @ConditionalOnProperty(name = "cache.statistics", havingValue = "true")
+    public MeterBinder cacheRegionMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> CacheRegions.ALL.forEach(region -> Gauge
+                .builder("hibernate.cache.region.hit.ratio", statistics, stats -> hitRatio(stats, region))
+                .tag("region", region)
+                .description("Hit ratio of the second-level cache region")
+                .register(registry));
+    }
+
+    /**
+     * Calculates the hit ratio of the given region.
+     * Query regions are created lazily by Hibernate, so a region might not exist yet when the gauge is read.
+     *
+     * @param statistics Hibernate statistics
+     * @param region     name of the cache region
+     * @return hit ratio between 0 and 1, or {@link Double#NaN} if the region has not been used yet
+     * @author Eralp Nitelik
+     */
+    private static double hitRatio(Statistics statistics, String region) {
+        CacheRegionStatistics regionStatistics;
+        try {
+            regionStatistics = statistics.getCacheRegionStatistics(region);
+        } catch (IllegalArgumentException exception) {
+            return Double.NaN;
+        }
+        if (regionStatistics == null) {
+            return Double.NaN;
+        }
+        long requests = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return requests == 0 ? Double.NaN : (double) regionStatistics.getHitCount() / requests;
+    }
+}
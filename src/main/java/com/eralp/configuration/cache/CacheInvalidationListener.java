@@ -0,0 +1,41 @@
+package com.eralp.configuration.cache;
+
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.configuration.invalidation.InvalidationListener;
+import com.eralp.entities.User;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the second-level cache of this node in line with changes made on other nodes.
+ * A cached user or principal query result would otherwise keep a deleted user active until it expires.
+ *
+ * @author Eralp Nitelik
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationListener implements InvalidationListener {
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        switch (event.type()) {
+            case USER_STATE_CHANGED -> {
+                if (InvalidationEvent.ALL_KEYS.equals(event.key())) {
+                    cache.evictEntityData(User.class);
+                } else {
+                    cache.evictEntityData(User.class, event.key());
+                }
+                cache.evictQueryRegion(CacheRegions.USER_QUERIES);
+            }
+            case ALL -> cache.evictAllRegions();
+            // Tokens are not cached.
+            case TOKEN_LOGGED_OUT, TOKENS_REVOKED, API_KEYS_CHANGED -> {
+            }
+        }
+    }
+}
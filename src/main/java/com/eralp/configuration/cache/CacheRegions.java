@@ -0,0 +1,22 @@
+package com.eralp.configuration.cache;
+
+import java.util.List;
+
+/**
+ * This class holds the names of the second-level cache regions used by the application.
+ * Region names must match the cache aliases that are configured in ehcache.xml.
+ *
+ * @author Eralp Nitelik
+ */
+public final class CacheRegions {
+    public static final String USERS = "users";
+    public static final String USER_QUERIES = "users.query";
+
+    /**
+     * All regions that are exposed as metrics.
+     */
+    public static final List<String> ALL = List.of(USERS, USER_QUERIES);
+
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,209 @@
+package com.eralp.configuration.cache;
+
+import com.eralp.configuration.history.EntityHistoryListener;
+import com.eralp.configuration.invalidation.InvalidationBus;
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.entities.User;
+import com.eralp.entities.base.BaseEntity;
+import com.eralp.repositories.base.BaseRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Soft delete and hard delete methods of {@link BaseRepository} are bulk statements which bypass the persistence context.
+ * This aspect runs after them and evicts the affected entries from the second-level cache explicitly,
+ * so a deleted entity is never served from the cache as if it was still active.
+ * Deleted users are also published to the {@link InvalidationBus}, so other nodes evict them as well,
+ * and deletes are reported to the {@link EntityHistoryListener}, as bulk statements do not raise Hibernate events.
+ * Users changed through the persistence context are published by {@link UserChangePublisher}.
+ * <p>
+ * Bulk statements do not tell which rows they changed. For entities whose history is recorded, the rows that the
+ * delete will change are selected and locked first, in the same transaction, so ids that do not exist or were already
+ * deleted are not recorded as deleted.
+ *
+ * @author Eralp Nitelik
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class SoftDeleteAspect {
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final InvalidationBus invalidationBus;
+    private final ObjectProvider<EntityHistoryListener> entityHistoryListener;
+
+    private final Map<Class<?>, Class<?>> entityTypes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<String>> collectionRoles = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the delete, records the history of the changed rows, and evicts the deleted entities,
+     * their cached collections and the cached query results.
+     *
+     * @param joinPoint the executed repository method
+     * @return the result of the repository method
+     * @throws Throwable anything the repository method throws
+     * @author Eralp Nitelik
+     */
+    @Around("execution(* com.eralp.repositories.base.BaseRepository+.softDelete*(..))" +
+            " || execution(* com.eralp.repositories.base.BaseRepository+.hardDeleteById(..))")
+    public Object aroundDelete(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?> entityType = entityTypes.computeIfAbsent(joinPoint.getTarget().getClass(), SoftDeleteAspect::resolveEntityType);
+        if (entityType == null) {
+            return joinPoint.proceed();
+        }
+        boolean soft = joinPoint.getSignature().getName().startsWith("softDelete");
+        List<Object> ids = idsOf(joinPoint.getArgs()[0]);
+        EntityHistoryListener historyListener = entityHistoryListener.getIfAvailable();
+        Object result = historyListener != null && historyListener.isTracked(entityType) && !ids.isEmpty()
+                ? deleteRecordingHistory(joinPoint, historyListener, entityType, ids, soft)
+                : joinPoint.proceed();
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        ids.forEach(id -> evict(cache, entityType, id));
+        cache.evictQueryRegions();
+        return result;
+    }
+
+    /**
+     * Runs the delete in a transaction that first locks the rows it will change, and records those rows only.
+     * The history is written after the transaction commits.
+     *
+     * @param joinPoint       the executed repository method
+     * @param historyListener the listener that records the deletes
+     * @param entityType      the type of the deleted entities
+     * @param ids             ids passed to the repository method
+     * @param soft            true if the entities are soft deleted
+     * @return the result of the repository method
+     * @author Eralp Nitelik
+     */
+    private Object deleteRecordingHistory(
+            ProceedingJoinPoint joinPoint,
+            EntityHistoryListener historyListener,
+            Class<?> entityType,
+            List<Object> ids,
+            boolean soft
+    ) {
+        return transactionTemplate.execute(status -> {
+            String entityName = entityManagerFactory.getMetamodel().entity(entityType).getName();
+            // Soft deletes only change the state of active rows, deleted rows just have their retention restarted.
+            List<Object> changed = entityManager
+                    .createQuery("SELECT e.id FROM " + entityName + " e WHERE e.id IN :ids" +
+                            (soft ? " AND e.state = 'ACTIVE'" : ""), Object.class)
+                    .setParameter("ids", ids)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            Object result = proceed(joinPoint);
+            historyListener.recordBulkDelete(entityType, changed, soft);
+            return result;
+        });
+    }
+
+    /**
+     * Evicts a single entity and its collections from the cache.
+     *
+     * @param cache      the second-level cache
+     * @param entityType the type of the deleted entity
+     * @param id         id of the deleted entity
+     * @author Eralp Nitelik
+     */
+    private void evict(Cache cache, Class<?> entityType, Object id) {
+        cache.evictEntityData(entityType, id);
+        if (entityType == User.class) {
+            invalidationBus.publish(InvalidationEvent.userStateChanged(id.toString()));
+        }
+        collectionRoles.computeIfAbsent(entityType, this::resolveCollectionRoles)
+                .forEach(role -> cache.evictCollectionData(role, id));
+    }
+
+    /**
+     * Reads the ids from the argument of a delete method.
+     *
+     * @param argument an entity, an id, or an {@link Iterable} of either
+     * @return the ids, without nulls
+     * @author Eralp Nitelik
+     */
+    private static List<Object> idsOf(Object argument) {
+        List<Object> ids = new ArrayList<>();
+        if (argument instanceof Iterable<?> iterable) {
+            iterable.forEach(element -> addId(ids, element));
+        } else {
+            addId(ids, argument);
+        }
+        return ids;
+    }
+
+    private static void addId(List<Object> ids, Object entityOrId) {
+        Object id = entityOrId instanceof BaseEntity entity ? entity.getId() : entityOrId;
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+
+    /**
+     * Proceeds with the repository method inside a callback that can not throw checked exceptions.
+     *
+     * @param joinPoint the executed repository method
+     * @return the result of the repository method
+     */
+    private static Object proceed(ProceedingJoinPoint joinPoint) {
+        try {
+            return joinPoint.proceed();
+        } catch (RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable throwable) {
+            throw new UndeclaredThrowableException(throwable);
+        }
+    }
+
+    /**
+     * Finds the names of the collection roles of an entity. (e.g. "com.eralp.entities.User.roles")
+     *
+     * @param entityType the type of the entity
+     * @return list of collection roles
+     * @author Eralp Nitelik
+     */
+    private List<String> resolveCollectionRoles(Class<?> entityType) {
+        return entityManagerFactory.getMetamodel()
+                .entity(entityType)
+                .getPluralAttributes()
+                .stream()
+                .map(PluralAttribute::getName)
+                .map(name -> entityType.getName() + "." + name)
+                .toList();
+    }
+
+    /**
+     * Resolves the entity type from the repository proxy by looking at the generic types of {@link BaseRepository}.
+     *
+     * @param repositoryClass the class of the repository proxy
+     * @return the entity type, or null if it cannot be resolved
+     * @author Eralp Nitelik
+     */
+    private static Class<?> resolveEntityType(Class<?> repositoryClass) {
+        for (Class<?> repositoryInterface : repositoryClass.getInterfaces()) {
+            if (repositoryInterface != BaseRepository.class && BaseRepository.class.isAssignableFrom(repositoryInterface)) {
+                Class<?>[] typeArguments = GenericTypeResolver.resolveTypeArguments(repositoryInterface, BaseRepository.class);
+                return typeArguments == null ? null : typeArguments[0];
+            }
+        }
+        return null;
+    }
+}
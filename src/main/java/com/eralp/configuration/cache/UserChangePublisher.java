@@ -0,0 +1,69 @@
+package com.eralp.configuration.cache;
+
+import com.eralp.configuration.invalidation.InvalidationBus;
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.entities.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes users that are updated or deleted through the persistence context to the {@link InvalidationBus},
+ * so every node evicts the cached user and drops the sessions and keys that were built from its old state.
+ * Bulk deletes bypass Hibernate events and are published by {@link SoftDeleteAspect} instead.
+ * <p>
+ * Events are published while the change is flushed. The bus delivers them after the transaction commits,
+ * so a rolled back change is never published.
+ *
+ * @author Eralp Nitelik
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangePublisher implements PostUpdateEventListener, PostDeleteEventListener {
+    private final EntityManagerFactory entityManagerFactory;
+    private final InvalidationBus invalidationBus;
+
+    /**
+     * Registers this listener to the Hibernate event listeners.
+     *
+     * @author Eralp Nitelik
+     */
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void publish(EntityPersister persister, Object id) {
+        if (persister.getMappedClass() == User.class) {
+            invalidationBus.publish(InvalidationEvent.userStateChanged(id.toString()));
+        }
+    }
+}
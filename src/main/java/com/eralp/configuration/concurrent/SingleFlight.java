@@ -0,0 +1,76 @@
+package com.eralp.configuration.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * This class coalesces concurrent loads of the same key. The first caller of a key runs the loader, callers that
+ * arrive while it is running wait for it and receive the same value or exception instead of running it again.
+ * <p>
+ * Nothing is cached. The key is removed before the load completes, so a caller only receives the result of a load
+ * that was still running when it arrived, and a caller that arrives afterwards runs a new load. The shared load may
+ * have started before the caller arrived, so it might not see changes committed after that.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the loaded values
+ * @author Eralp Nitelik
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Runnable onShared;
+
+    /**
+     * @param onShared called whenever a caller receives the result of a load run by another caller
+     */
+    public SingleFlight(Runnable onShared) {
+        this.onShared = onShared;
+    }
+
+    /**
+     * Runs the loader, or waits for the load of the same key that is already running.
+     *
+     * @param key    key of the load
+     * @param loader loads the value, runs on the calling thread
+     * @return the loaded value
+     * @author Eralp Nitelik
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            onShared.run();
+            return join(running);
+        }
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error exception) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(exception);
+            throw exception;
+        }
+        // Removed before completing, so no caller can join a load that has already completed.
+        inFlight.remove(key, created);
+        created.complete(value);
+        return value;
+    }
+
+    /**
+     * Waits for a load of another caller, rethrowing its exception as is.
+     */
+    private static <V> V join(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (exception.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw exception;
+        }
+    }
+}
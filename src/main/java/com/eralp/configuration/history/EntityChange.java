@@ -0,0 +1,41 @@
+package com.eralp.configuration.history;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A change of a single entity, as written to the entity_history table.
+ *
+ * @param entityType simple name of the entity class
+ * @param entityId   id of the entity
+ * @param operation  the kind of change
+ * @param changes    changed fields, empty for deletes
+ * @param changedBy  id of the user that made the change, or "anonymous"
+ * @param changedAt  when the change was captured
+ * @author Eralp Nitelik
+ */
+public record EntityChange(
+        String entityType,
+        String entityId,
+        Operation operation,
+        List<FieldChange> changes,
+        String changedBy,
+        Instant changedAt
+) {
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        SOFT_DELETE,
+        DELETE
+    }
+
+    /**
+     * A changed field. Values are null for masked fields and for values that did not exist.
+     *
+     * @param field    name of the field
+     * @param oldValue value before the change
+     * @param newValue value after the change
+     */
+    public record FieldChange(String field, String oldValue, String newValue) {
+    }
+}
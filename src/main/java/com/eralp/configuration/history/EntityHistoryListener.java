@@ -0,0 +1,244 @@
+package com.eralp.configuration.history;
+
+import com.eralp.entities.base.BaseEntity;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Captures field-level changes of entities annotated with {@link RecordHistory} and passes them to the {@link EntityHistoryWriter}.
+ * <p>
+ * Hibernate post-commit listeners capture inserts, updates and deletes, so changes of rolled back transactions are
+ * not recorded. Bulk statements bypass Hibernate events, so the delete methods of
+ * {@link com.eralp.repositories.base.BaseRepository} report their changes through {@link #recordBulkDelete}.
+ * Only the field diff is built on the committing thread, serialization and the insert happen on the writer thread.
+ *
+ * @author Eralp Nitelik
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "history.enabled", havingValue = "true", matchIfMissing = true)
+public class EntityHistoryListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+    /*
+        Audit fields change on every update and are already stored on the row itself.
+     */
+    private static final Set<String> IGNORED_FIELDS = Set.of("createdAt", "updatedAt", "createdBy", "updatedBy");
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityHistoryWriter entityHistoryWriter;
+    private final AuditorAware<String> auditorAware;
+
+    private final Map<Class<?>, Optional<Set<String>>> maskedFields = new ConcurrentHashMap<>();
+
+    /**
+     * Registers this listener to the Hibernate event listeners.
+     *
+     * @author Eralp Nitelik
+     */
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return isTracked(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        EntityPersister persister = event.getPersister();
+        Set<String> masked = maskedFieldsOf(persister.getMappedClass());
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        Object[] state = event.getState();
+        List<EntityChange.FieldChange> changes = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            if (isRecorded(names[i], types[i]) && state[i] != null) {
+                changes.add(fieldChange(names[i], masked, null, state[i]));
+            }
+        }
+        record(persister, event.getId(), EntityChange.Operation.INSERT, changes);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        EntityPersister persister = event.getPersister();
+        Set<String> masked = maskedFieldsOf(persister.getMappedClass());
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        Object[] oldState = event.getOldState();
+        Object[] state = event.getState();
+        List<EntityChange.FieldChange> changes = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            if (!isRecorded(names[i], types[i])) {
+                continue;
+            }
+            // The old state is missing if a detached entity was updated without being loaded first.
+            Object oldValue = oldState == null ? null : oldState[i];
+            if (oldState == null ? isDirty(event.getDirtyProperties(), i) : !types[i].isEqual(oldValue, state[i])) {
+                changes.add(fieldChange(names[i], masked, oldValue, state[i]));
+            }
+        }
+        if (!changes.isEmpty()) {
+            record(persister, event.getId(), EntityChange.Operation.UPDATE, changes);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getPersister(), event.getId(), EntityChange.Operation.DELETE, List.of());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing was stored, so there is nothing to record.
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was stored, so there is nothing to record.
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was stored, so there is nothing to record.
+    }
+
+    /**
+     * Records deletes that were executed as a bulk statement. The caller passes only the rows the statement changed,
+     * see {@link com.eralp.configuration.cache.SoftDeleteAspect}. If a transaction is active, the changes are recorded
+     * after it commits.
+     *
+     * @param entityType type of the deleted entities
+     * @param ids        ids of the deleted entities
+     * @param soft       true if the entities were soft deleted
+     * @author Eralp Nitelik
+     */
+    public void recordBulkDelete(Class<?> entityType, Collection<?> ids, boolean soft) {
+        if (!isTracked(entityType) || ids.isEmpty()) {
+            return;
+        }
+        List<EntityChange> changes = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            changes.add(soft
+                    ? change(entityType, id, EntityChange.Operation.SOFT_DELETE,
+                    List.of(new EntityChange.FieldChange("state", "ACTIVE", "DELETED")))
+                    : change(entityType, id, EntityChange.Operation.DELETE, List.of()));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changes.forEach(entityHistoryWriter::record);
+                }
+            });
+        } else {
+            changes.forEach(entityHistoryWriter::record);
+        }
+    }
+
+    private void record(EntityPersister persister, Object id, EntityChange.Operation operation, List<EntityChange.FieldChange> changes) {
+        entityHistoryWriter.record(change(persister.getMappedClass(), id, operation, changes));
+    }
+
+    private EntityChange change(Class<?> entityType, Object id, EntityChange.Operation operation, List<EntityChange.FieldChange> changes) {
+        return new EntityChange(
+                entityType.getSimpleName(),
+                String.valueOf(id),
+                operation,
+                changes,
+                auditorAware.getCurrentAuditor().orElse("anonymous"),
+                Instant.now()
+        );
+    }
+
+    /**
+     * @param entityType the type of the entity
+     * @return true if changes of the entity are recorded
+     * @author Eralp Nitelik
+     */
+    public boolean isTracked(Class<?> entityType) {
+        return maskedFieldsOf(entityType) != null;
+    }
+
+    /**
+     * @param entityType the type of the entity
+     * @return the masked fields of the entity, or null if its changes are not recorded
+     */
+    private Set<String> maskedFieldsOf(Class<?> entityType) {
+        return maskedFields.computeIfAbsent(entityType, type -> Optional.ofNullable(type.getAnnotation(RecordHistory.class))
+                        .map(annotation -> Set.of(annotation.masked())))
+                .orElse(null);
+    }
+
+    private static boolean isRecorded(String name, Type type) {
+        // Collections are owned by the other side, e.g. tokens of a user.
+        return !type.isCollectionType() && !IGNORED_FIELDS.contains(name);
+    }
+
+    private static boolean isDirty(int[] dirtyProperties, int index) {
+        if (dirtyProperties == null) {
+            return false;
+        }
+        for (int dirty : dirtyProperties) {
+            if (dirty == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static EntityChange.FieldChange fieldChange(String name, Set<String> masked, Object oldValue, Object newValue) {
+        if (masked.contains(name)) {
+            return new EntityChange.FieldChange(name, null, null);
+        }
+        return new EntityChange.FieldChange(name, format(oldValue), format(newValue));
+    }
+
+    /**
+     * Formats a value of a field. Associations are written as their ids, and collections are sorted,
+     * so the same value is always written the same way.
+     *
+     * @param value the value
+     * @return the formatted value, or null
+     */
+    private static String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof BaseEntity entity) {
+            return entity.getId();
+        }
+        if (value instanceof Date date) {
+            return date.toInstant().toString();
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.stream()
+                    .map(String::valueOf)
+                    .sorted()
+                    .collect(Collectors.joining(",", "[", "]"));
+        }
+        return value.toString();
+    }
+}
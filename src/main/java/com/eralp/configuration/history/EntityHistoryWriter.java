@@ -0,0 +1,193 @@
+package com.eralp.configuration.history;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class writes {@link EntityChange}s to the entity_history table off the request thread.
+ * <p>
+ * Changes are put into a bounded queue and a single writer thread inserts them in batches. If the writer falls behind
+ * and the queue is full, the recording thread waits up to "history.offer-timeout" for space, which slows writers down
+ * to the rate history can be stored. If there is still no space, the change is dropped and counted in "history.dropped",
+ * so a stalled history table never blocks the application.
+ *
+ * @author Eralp Nitelik
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "history.enabled", havingValue = "true", matchIfMissing = true)
+public class EntityHistoryWriter implements SmartLifecycle {
+    private static final String INSERT_HISTORY = "INSERT INTO entity_history " +
+            "(entity_type, entity_id, operation, changes, changed_by, changed_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<EntityChange> queue;
+    private final Counter dropped;
+    private final int batchSize;
+    private final long offerTimeoutNanos;
+    private final long flushIntervalNanos;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public EntityHistoryWriter(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${history.queue-capacity:10000}") int queueCapacity,
+            @Value("${history.batch-size:200}") int batchSize,
+            @Value("${history.offer-timeout:50ms}") Duration offerTimeout,
+            @Value("${history.flush-interval:1s}") Duration flushInterval
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.dropped = Counter.builder("history.dropped")
+                .description("Entity changes that were dropped because the history queue was full")
+                .register(meterRegistry);
+        Gauge.builder("history.queue.size", queue, BlockingQueue::size)
+                .description("Entity changes waiting to be written to the history")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the change to be written, waiting for space if the queue is full.
+     *
+     * @param change the change
+     * @return false if the change was dropped
+     * @author Eralp Nitelik
+     */
+    public boolean record(EntityChange change) {
+        try {
+            if (queue.offer(change, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+        return false;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::write, "entity-history-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stops the writer after the queued changes are written.
+     *
+     * @author Eralp Nitelik
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            try {
+                writerThread.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) * 10);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stopped after the web server, so changes of the last requests are still written.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Writes batches until the writer is stopped and the queue is empty.
+     *
+     * @author Eralp Nitelik
+     */
+    private void write() {
+        List<EntityChange> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            EntityChange first;
+            try {
+                first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Inserts the batch with a single JDBC batch. A failed batch is logged and dropped, it is not retried.
+     *
+     * @param batch changes to insert
+     * @author Eralp Nitelik
+     */
+    private void flush(List<EntityChange> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (EntityChange change : batch) {
+            rows.add(new Object[]{
+                    change.entityType(),
+                    change.entityId(),
+                    change.operation().name(),
+                    toJson(change.changes()),
+                    change.changedBy(),
+                    Timestamp.from(change.changedAt())
+            });
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_HISTORY, rows);
+        } catch (DataAccessException exception) {
+            dropped.increment(batch.size());
+            log.error("{} entity changes could not be written to the history. {}", batch.size(), exception.getMessage());
+        }
+    }
+
+    private String toJson(List<EntityChange.FieldChange> changes) {
+        if (changes.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(changes);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.eralp.configuration.history;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks an entity whose changes are recorded to the entity_history table by {@link EntityHistoryListener}.
+ *
+ * @author Eralp Nitelik
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RecordHistory {
+    /**
+     * Fields whose values are never written to the history. A change is recorded, but not the values.
+     */
+    String[] masked() default {};
+}
@@ -0,0 +1,17 @@
+package com.eralp.configuration.invalidation;
+
+/**
+ * Broadcasts {@link InvalidationEvent}s to the {@link InvalidationListener}s of every node.
+ * If a transaction is active, the event is delivered after it commits, so no node reloads the old state
+ * after applying the event. The implementation is selected with "invalidation.bus".
+ *
+ * @author Eralp Nitelik
+ */
+public interface InvalidationBus {
+    /**
+     * Publishes the event to every node, including this one.
+     *
+     * @param event the event
+     */
+    void publish(InvalidationEvent event);
+}
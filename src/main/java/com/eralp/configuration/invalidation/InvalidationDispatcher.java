@@ -0,0 +1,38 @@
+package com.eralp.configuration.invalidation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers received events to the local {@link InvalidationListener}s.
+ * A failing listener is logged and does not stop the others.
+ *
+ * @author Eralp Nitelik
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InvalidationDispatcher {
+    /*
+        Listeners are looked up lazily, as they may depend on the bus themselves.
+     */
+    private final ObjectProvider<InvalidationListener> listeners;
+
+    /**
+     * Delivers the event to every listener.
+     *
+     * @param event the event
+     * @author Eralp Nitelik
+     */
+    public void dispatch(InvalidationEvent event) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onInvalidation(event);
+            } catch (RuntimeException exception) {
+                log.error("Invalidation listener {} failed for {}.", listener.getClass().getSimpleName(), event, exception);
+            }
+        });
+    }
+}
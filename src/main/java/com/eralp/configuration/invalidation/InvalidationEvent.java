@@ -0,0 +1,130 @@
+package com.eralp.configuration.invalidation;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An event that tells every node to drop local state derived from the database.
+ * Events are encoded as "TYPE:occurredAt:key" to be sent between nodes.
+ *
+ * @param type       the type of the change
+ * @param key        what changed, depends on the type
+ * @param occurredAt epoch second the change was made at, by the clock of the node that made it
+ * @author Eralp Nitelik
+ */
+public record InvalidationEvent(Type type, String key, long occurredAt) {
+    /**
+     * Key of events that apply to every entry.
+     */
+    public static final String ALL_KEYS = "*";
+
+    /**
+     * Maximum number of keys of a single event. Keeps encoded events of user ids well below the 8000 byte payload
+     * limit of PostgreSQL notifications.
+     */
+    public static final int MAX_KEYS = 100;
+
+    private static final char SEPARATOR = ':';
+    private static final String KEY_SEPARATOR = ",";
+
+    public enum Type {
+        /**
+         * A token was logged out. The key is the digest of the token.
+         */
+        TOKEN_LOGGED_OUT,
+        /**
+         * Every token of some users was revoked. The key is the ids of up to {@link #MAX_KEYS} users separated by ",",
+         * or {@link #ALL_KEYS}.
+         */
+        TOKENS_REVOKED,
+        /**
+         * A user was deleted or changed. The key is the id of the user, or {@link #ALL_KEYS}.
+         */
+        USER_STATE_CHANGED,
+        /**
+         * API keys were created or revoked. The key is {@link #ALL_KEYS}.
+         */
+        API_KEYS_CHANGED,
+        /**
+         * Events might have been missed, e.g. after a reconnect. Every local state should be dropped.
+         */
+        ALL
+    }
+
+    public static InvalidationEvent tokenLoggedOut(String tokenDigest) {
+        return new InvalidationEvent(Type.TOKEN_LOGGED_OUT, tokenDigest, now());
+    }
+
+    public static InvalidationEvent tokensRevoked(String userId) {
+        return new InvalidationEvent(Type.TOKENS_REVOKED, userId, now());
+    }
+
+    /**
+     * Creates a single event for the revoked tokens of several users.
+     *
+     * @param userIds ids of the users, at most {@link #MAX_KEYS}
+     * @return the {@link InvalidationEvent}
+     * @throws IllegalArgumentException if there are no or too many users
+     * @author Eralp Nitelik
+     */
+    public static InvalidationEvent tokensRevoked(Collection<String> userIds) {
+        if (userIds.isEmpty() || userIds.size() > MAX_KEYS) {
+            throw new IllegalArgumentException("An event must have between 1 and " + MAX_KEYS + " keys: " + userIds.size());
+        }
+        return new InvalidationEvent(Type.TOKENS_REVOKED, String.join(KEY_SEPARATOR, userIds), now());
+    }
+
+    public static InvalidationEvent userStateChanged(String userId) {
+        return new InvalidationEvent(Type.USER_STATE_CHANGED, userId, now());
+    }
+
+    public static InvalidationEvent apiKeysChanged() {
+        return new InvalidationEvent(Type.API_KEYS_CHANGED, ALL_KEYS, now());
+    }
+
+    public static InvalidationEvent all() {
+        return new InvalidationEvent(Type.ALL, ALL_KEYS, now());
+    }
+
+    /**
+     * @return the keys of the event, a single key unless the event was created for several entries
+     * @author Eralp Nitelik
+     */
+    public List<String> keys() {
+        return key.contains(KEY_SEPARATOR) ? List.of(key.split(KEY_SEPARATOR)) : List.of(key);
+    }
+
+    /**
+     * @return the event encoded as "TYPE:occurredAt:key"
+     * @author Eralp Nitelik
+     */
+    public String encode() {
+        return type.name() + SEPARATOR + occurredAt + SEPARATOR + key;
+    }
+
+    /**
+     * Decodes an event encoded with {@link #encode()}.
+     *
+     * @param payload the encoded event
+     * @return the {@link InvalidationEvent}
+     * @throws IllegalArgumentException if the payload is not a valid event
+     * @author Eralp Nitelik
+     */
+    public static InvalidationEvent decode(String payload) {
+        int typeEnd = payload.indexOf(SEPARATOR);
+        int occurredAtEnd = typeEnd < 0 ? -1 : payload.indexOf(SEPARATOR, typeEnd + 1);
+        if (occurredAtEnd < 0) {
+            throw new IllegalArgumentException("Invalid invalidation event: " + payload);
+        }
+        // Both throw an IllegalArgumentException if the payload is not valid.
+        return new InvalidationEvent(
+                Type.valueOf(payload.substring(0, typeEnd)),
+                payload.substring(occurredAtEnd + 1),
+                Long.parseLong(payload.substring(typeEnd + 1, occurredAtEnd))
+        );
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,17 @@
+package com.eralp.configuration.invalidation;
+
+/**
+ * Implemented by beans that keep node-local state which must follow changes made on any node.
+ * Every listener bean receives every {@link InvalidationEvent}, including the ones published by its own node.
+ *
+ * @author Eralp Nitelik
+ */
+@FunctionalInterface
+public interface InvalidationListener {
+    /**
+     * Applies the event to the local state. It must be fast, events are delivered on a single thread.
+     *
+     * @param event the event
+     */
+    void onInvalidation(InvalidationEvent event);
+}
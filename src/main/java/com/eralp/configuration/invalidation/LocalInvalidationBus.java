@@ -0,0 +1,34 @@
+package com.eralp.configuration.invalidation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * An {@link InvalidationBus} that only delivers events within this JVM. It is the default,
+ * and is enough for a single node or for nodes that keep no local state.
+ *
+ * @author Eralp Nitelik
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "invalidation.bus", havingValue = "local", matchIfMissing = true)
+public class LocalInvalidationBus implements InvalidationBus {
+    private final InvalidationDispatcher dispatcher;
+
+    @Override
+    public void publish(InvalidationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.dispatch(event);
+                }
+            });
+        } else {
+            dispatcher.dispatch(event);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.eralp.configuration.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * An {@link InvalidationBus} that broadcasts events between nodes with PostgreSQL LISTEN/NOTIFY.
+ * <p>
+ * Events are sent with pg_notify on the connection of the current transaction, so PostgreSQL delivers them only
+ * if and after the transaction commits. Every node, including the publishing one, listens on a dedicated connection
+ * and dispatches the received events to its listeners. If the listening connection is lost, the node reconnects and
+ * publishes an {@link InvalidationEvent.Type#ALL} event locally, as notifications sent in between are lost.
+ *
+ * @author Eralp Nitelik
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "invalidation.bus", havingValue = "postgres")
+public class PostgresInvalidationBus implements InvalidationBus, SmartLifecycle {
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final InvalidationDispatcher dispatcher;
+    private final String channel;
+    private final int pollMillis;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PostgresInvalidationBus(
+            JdbcTemplate jdbcTemplate,
+            DataSource dataSource,
+            InvalidationDispatcher dispatcher,
+            @Value("${invalidation.channel:invalidation}") String channel,
+            @Value("${invalidation.poll-interval:500ms}") Duration pollInterval
+    ) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid invalidation channel: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.dispatcher = dispatcher;
+        this.channel = channel;
+        this.pollMillis = (int) pollInterval.toMillis();
+    }
+
+    @Override
+    public void publish(InvalidationEvent event) {
+        // JdbcTemplate uses the connection of the current JPA transaction, so the notification is sent on commit.
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, event.encode());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Listens for notifications until the bus is stopped, reconnecting with an exponential backoff.
+     *
+     * @author Eralp Nitelik
+     */
+    private void listen() {
+        long backoff = 100;
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                // The pool returns a proxy, the driver connection is needed to read the notifications.
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("Listening for invalidation events on channel \"{}\".", channel);
+                if (connectedBefore) {
+                    dispatcher.dispatch(InvalidationEvent.all());
+                }
+                connectedBefore = true;
+                backoff = 100;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException exception) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Invalidation listener connection failed, reconnecting in {} ms. {}", backoff, exception.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF.toMillis());
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        InvalidationEvent event;
+        try {
+            event = InvalidationEvent.decode(payload);
+        } catch (IllegalArgumentException exception) {
+            log.warn("Ignoring invalid invalidation event \"{}\".", payload);
+            return;
+        }
+        dispatcher.dispatch(event);
+    }
+}
@@ -10,6 +10,9 @@ import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
 
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * LocaleConfig is a class used for configuring the locale.
@@ -26,9 +29,35 @@ public class LocaleConfig extends AcceptHeaderLocaleResolver implements WebMvcCo
             new Locale("tr")
     );
 
+    /**
+     * Basename of the message bundles.
+     */
+    public static final String MESSAGES_BASENAME = "messages";
+
+    /**
+     * Resolved locales are cached by the raw "Accept-Language" header. Clients send only a few distinct headers,
+     * the limit only protects the cache from headers crafted to fill it.
+     */
+    private static final int MAX_CACHED_HEADERS = 512;
+
+    private final Map<String, Locale> resolvedLocales = new ConcurrentHashMap<>();
+
+    /**
+     * Returns every locale that messages can be resolved for, starting with the default locale.
+     *
+     * @return {@link List} of supported locales
+     * @author Eralp Nitelik
+     */
+    public static List<Locale> supportedLocales() {
+        return Stream.concat(Stream.of(Locale.getDefault()), LOCALES.stream())
+                .distinct()
+                .toList();
+    }
+
     /**
      * Resolves the locale based on the "Accept-Language" header in the HTTP request.
-     * If the header is not present or empty, returns the default locale.
+     * If the header is not present or empty, or it does not match a supported locale, returns the default locale.
+     * Results are cached by header value, so the header is parsed only once for each distinct value.
      *
      * @param request the request that carries locale info
      * @return {@link Locale} representing the resolved locale
@@ -37,20 +66,55 @@ public class LocaleConfig extends AcceptHeaderLocaleResolver implements WebMvcCo
     @NonNull
     public Locale resolveLocale(HttpServletRequest request) {
         String localeHeader = request.getHeader("Accept-Language");
-        return localeHeader == null || localeHeader.isEmpty()
-                ? Locale.getDefault()
-                : Locale.lookup(Locale.LanguageRange.parse(localeHeader), LOCALES);
+        if (localeHeader == null || localeHeader.isEmpty()) {
+            return Locale.getDefault();
+        }
+        Locale locale = resolvedLocales.get(localeHeader);
+        if (locale == null) {
+            locale = lookup(localeHeader);
+            if (resolvedLocales.size() < MAX_CACHED_HEADERS) {
+                resolvedLocales.putIfAbsent(localeHeader, locale);
+            }
+        }
+        return locale;
+    }
+
+    /**
+     * Finds the best matching supported locale for the given "Accept-Language" header.
+     *
+     * @param localeHeader the raw header value
+     * @return the matching locale, or the default locale if nothing matches or the header is malformed
+     */
+    private static Locale lookup(String localeHeader) {
+        try {
+            Locale locale = Locale.lookup(Locale.LanguageRange.parse(localeHeader), LOCALES);
+            return locale == null ? Locale.getDefault() : locale;
+        } catch (IllegalArgumentException exception) {
+            return Locale.getDefault();
+        }
     }
 
     /**
      * Defines a bean for a {@link ResourceBundleMessageSource} with basename and default encoding.
+     * {@link LocaleSelector} resolves its messages through this bean.
      *
      * @return the configured {@link ResourceBundleMessageSource}
      */
     @Bean
     public ResourceBundleMessageSource messageSource() {
+        ResourceBundleMessageSource messageSource = createMessageSource();
+        LocaleSelector.setMessageSource(messageSource);
+        return messageSource;
+    }
+
+    /**
+     * Creates a {@link ResourceBundleMessageSource} that reads the message bundles as UTF-8.
+     *
+     * @return a new {@link ResourceBundleMessageSource}
+     */
+    static ResourceBundleMessageSource createMessageSource() {
         ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
-        messageSource.setBasename("messages");
+        messageSource.setBasename(MESSAGES_BASENAME);
         messageSource.setDefaultEncoding("UTF-8");
         return messageSource;
     }
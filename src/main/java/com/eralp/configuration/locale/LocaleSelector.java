@@ -1,23 +1,41 @@
 package com.eralp.configuration.locale;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import com.eralp.exceptions.ExceptionType;
+import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
-import org.springframework.context.support.ResourceBundleMessageSource;
-import org.springframework.stereotype.Component;
 
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
 
 /**
- * LocaleSelector is a component class that provides a way to get messages based on the locale set in the LocaleContextHolder.
+ * LocaleSelector is a class that provides a way to get messages based on the locale set in the LocaleContextHolder.
+ * Messages of the supported locales are compiled into immutable tables when the class is first used,
+ * so resolving them does not lock or allocate. Other locales and codes that are not in the tables are resolved
+ * through the configured {@link MessageSource}, which returns the code itself if no message is defined for it.
+ * <p>
+ * The tables are read from the message bundles directly instead of being assigned by a bean constructor,
+ * so messages are available regardless of bean creation order, including ahead-of-time processed and native builds.
  *
  * @author Eralp Nitelik
  */
-@Component
-public class LocaleSelector {
-    private static ResourceBundleMessageSource messageSource;
+public final class LocaleSelector {
+    /**
+     * Replaced by the message source bean of {@link LocaleConfig} once it is created.
+     */
+    private static volatile MessageSource messageSource = LocaleConfig.createMessageSource();
+
+    private LocaleSelector() {
+    }
 
-    @Autowired
-    public LocaleSelector(ResourceBundleMessageSource messageSource) {
+    /**
+     * Sets the message source that resolves the messages which are not in the compiled tables.
+     *
+     * @param messageSource the configured {@link MessageSource}
+     */
+    static void setMessageSource(MessageSource messageSource) {
         LocaleSelector.messageSource = messageSource;
     }
 
@@ -25,10 +43,80 @@ public class LocaleSelector {
      * Returns the message for the given message code based on the locale set in the {@link LocaleContextHolder}.
      *
      * @param msgCode the code representing the message to be retrieved
-     * @return the message for the given message code in the current locale
+     * @return the message for the given message code in the current locale, or the code if it has no message
      */
     public static String withCode(String msgCode) {
         Locale locale = LocaleContextHolder.getLocale();
-        return messageSource.getMessage(msgCode, null, locale);
+        return withCode(msgCode, locale);
+    }
+
+    /**
+     * Returns the message for the given message code in the given locale.
+     *
+     * @param msgCode the code representing the message to be retrieved
+     * @param locale  the locale of the message
+     * @return the message for the given message code in the given locale, or the code if it has no message
+     */
+    public static String withCode(String msgCode, Locale locale) {
+        Map<String, String> table = Messages.BY_LOCALE.get(locale);
+        String message = table == null ? null : table.get(msgCode);
+        return message != null ? message : messageSource.getMessage(msgCode, null, msgCode, locale);
+    }
+
+    /**
+     * Returns the default message of the given {@link ExceptionType} based on the locale set in the {@link LocaleContextHolder}.
+     *
+     * @param exceptionType the predefined exception
+     * @return the message of the exception in the current locale
+     */
+    public static String withType(ExceptionType exceptionType) {
+        Locale locale = LocaleContextHolder.getLocale();
+        Map<ExceptionType, String> table = Messages.BY_EXCEPTION_TYPE.get(locale);
+        String message = table == null ? null : table.get(exceptionType);
+        return message != null ? message : withCode(exceptionType.getLocaleMessageCode(), locale);
+    }
+
+    /**
+     * Holds the compiled message tables. It is initialized on first use by the JVM.
+     */
+    private static final class Messages {
+        private static final Map<Locale, Map<String, String>> BY_LOCALE = compileMessages();
+        private static final Map<Locale, Map<ExceptionType, String>> BY_EXCEPTION_TYPE = compileExceptionMessages();
+
+        /**
+         * Resolves every message code of the bundles for every supported locale.
+         *
+         * @return immutable message tables by locale
+         */
+        private static Map<Locale, Map<String, String>> compileMessages() {
+            Map<Locale, Map<String, String>> tables = new HashMap<>();
+            for (Locale locale : LocaleConfig.supportedLocales()) {
+                ResourceBundle bundle = ResourceBundle.getBundle(LocaleConfig.MESSAGES_BASENAME, locale);
+                Map<String, String> table = new HashMap<>();
+                bundle.keySet().forEach(code -> table.put(code, bundle.getString(code)));
+                tables.put(locale, Map.copyOf(table));
+            }
+            return Map.copyOf(tables);
+        }
+
+        /**
+         * Indexes the messages of every {@link ExceptionType} by locale.
+         *
+         * @return exception messages by locale
+         */
+        private static Map<Locale, Map<ExceptionType, String>> compileExceptionMessages() {
+            Map<Locale, Map<ExceptionType, String>> tables = new HashMap<>();
+            BY_LOCALE.forEach((locale, table) -> {
+                Map<ExceptionType, String> byType = new EnumMap<>(ExceptionType.class);
+                for (ExceptionType exceptionType : ExceptionType.values()) {
+                    String message = table.get(exceptionType.getLocaleMessageCode());
+                    if (message != null) {
+                        byType.put(exceptionType, message);
+                    }
+                }
+                tables.put(locale, byType);
+            });
+            return Map.copyOf(tables);
+        }
     }
 }
@@ -0,0 +1,28 @@
+package com.eralp.configuration.metrics;
+
+import com.eralp.configuration.web.timing.TimingPhase;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Timed operations of the authentication pipeline. Each one is exported as the "auth.operation" timer
+ * with its tag value as the "operation" tag, and is reported as its {@link TimingPhase} in the "Server-Timing" header.
+ *
+ * @author Eralp Nitelik
+ */
+@Getter
+@AllArgsConstructor
+public enum AuthOperation {
+    JWT_PARSE("jwt_parse", "Parsing and signature verification of a JWT", TimingPhase.JWT),
+    TOKEN_LOOKUP("token_lookup", "Lookup of a stored token", TimingPhase.TOKEN_DB),
+    USER_LOOKUP("user_lookup", "Lookup of an active user", TimingPhase.USER_DB),
+    PASSWORD_VERIFY("password_verify", "BCrypt verification of a password", TimingPhase.BCRYPT),
+    PASSWORD_ENCODE("password_encode", "BCrypt hashing of a password", TimingPhase.BCRYPT),
+    TOKEN_ISSUE("token_issue", "Generation and storage of a new token", TimingPhase.TOKEN_ISSUE),
+    TOKEN_REVOKE("token_revoke", "Revocation of the tokens of a user", TimingPhase.TOKEN_REVOKE),
+    API_KEY_VERIFY("api_key_verify", "Lookup and HMAC verification of an API key", TimingPhase.API_KEY);
+
+    private final String tag;
+    private final String description;
+    private final TimingPhase phase;
+}
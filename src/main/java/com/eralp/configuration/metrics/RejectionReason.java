@@ -0,0 +1,39 @@
+package com.eralp.configuration.metrics;
+
+import com.eralp.exceptions.custom.InvalidTokenException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Reasons of rejecting a bearer token or an API key. Each one is exported as the "auth.rejections" counter
+ * with its tag value as the "reason" tag.
+ *
+ * @author Eralp Nitelik
+ */
+@Getter
+@AllArgsConstructor
+public enum RejectionReason {
+    EXPIRED("expired"),
+    BAD_SIGNATURE("bad_signature"),
+    MALFORMED("malformed"),
+    REVOKED("revoked"),
+    LOGGED_OUT("logged_out"),
+    UNKNOWN_TOKEN("unknown_token"),
+    UNKNOWN_USER("unknown_user"),
+    INVALID_API_KEY("invalid_api_key");
+
+    private final String tag;
+
+    /**
+     * @param reason the reason of an {@link InvalidTokenException}
+     * @return the matching {@link RejectionReason}
+     * @author Eralp Nitelik
+     */
+    public static RejectionReason of(InvalidTokenException.Reason reason) {
+        return switch (reason) {
+            case EXPIRED -> EXPIRED;
+            case BAD_SIGNATURE -> BAD_SIGNATURE;
+            case MALFORMED -> MALFORMED;
+        };
+    }
+}
@@ -1,5 +1,7 @@
 package com.eralp.configuration.security;
 
+import com.eralp.configuration.security.apikey.ApiKeyAuthFilter;
+import com.eralp.configuration.security.authorization.RuleAuthorizationManager;
 import com.eralp.configuration.security.jwt.JwtAuthFilter;
 import com.eralp.exceptions.security.FilterChainExceptionHandler;
 import com.eralp.exceptions.security.SecurityExceptionComponent;
@@ -27,26 +29,21 @@ import org.springframework.security.web.authentication.logout.LogoutHandler;
 @RequiredArgsConstructor
 public class FilterChainConfig {
     private final JwtAuthFilter jwtAuthFilter;
+    private final ApiKeyAuthFilter apiKeyAuthFilter;
     private final AuthenticationProvider authenticationProvider;
     private final SecurityExceptionComponent securityExceptionComponent;
     private final FilterChainExceptionHandler filterChainExceptionHandler;
     private final LogoutHandler logoutHandler;
-
-    private static final String[] WHITELIST = {
-            "/auth/**",
-            "/test",
-            "/swagger-ui/**",
-            "/v3/api-docs/**"
-    };
+    private final RuleAuthorizationManager ruleAuthorizationManager;
 
     private static final String LOGOUT_URL = "/auth/logout";
 
     /**
      * This method creates a Bean of type {@link SecurityFilterChain}.
-     * It configures the {@link HttpSecurity} to disable CSRF, authorize all requests under given patterns.
+     * It configures the {@link HttpSecurity} to disable CSRF, authorize requests with the rules in the database.
      * It also configures the session management to be stateless,
      * sets the authentication provider and
-     * adds a custom {@link JwtAuthFilter} filter before {@link UsernamePasswordAuthenticationFilter}.
+     * adds custom {@link JwtAuthFilter} and {@link ApiKeyAuthFilter} filters before {@link UsernamePasswordAuthenticationFilter}.
      *
      * @param httpSecurity The HttpSecurity to configure the filter chain.
      * @return a {@link SecurityFilterChain} bean that configures the {@link HttpSecurity} to handle requests.
@@ -57,20 +54,10 @@ public class FilterChainConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity) throws Exception {
         httpSecurity
                 .csrf().disable()
-                // requests below do not need authentication.
+                // requests are authorized by the compiled authorization rules, see AuthorizationRules.
                 .authorizeHttpRequests()
-                .requestMatchers(WHITELIST)
-                .permitAll()
-                // requests below require certain roles to access content. (Order matters!)
-                .requestMatchers("/test/admin", "/admin/**")
-                .hasRole("ADMIN")
-                .requestMatchers("/test/manager", "/manager/**")
-                .hasAnyRole("ADMIN", "MANAGER")
-                .requestMatchers("/**")
-                .hasAnyRole("ADMIN", "MANAGER", "USER")
-                // all other requests require authentication.
                 .anyRequest()
-                .authenticated()
+                .access(ruleAuthorizationManager)
                 .and()
                 // authentication should not be stored thus stateless session.
                 .sessionManagement()
@@ -86,6 +73,8 @@ public class FilterChainConfig {
                 .addFilterBefore(filterChainExceptionHandler, LogoutFilter.class)
                 // to execute our custom filter before UsernamePasswordAuthenticationFilter, this allows us to set securityContext with our filter.
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // service accounts authenticate with an API key instead of a token.
+                .addFilterBefore(apiKeyAuthFilter, UsernamePasswordAuthenticationFilter.class)
                 .logout()
                 .logoutUrl(LOGOUT_URL)
                 .addLogoutHandler(logoutHandler)
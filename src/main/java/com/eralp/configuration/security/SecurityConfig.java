@@ -1,6 +1,9 @@
 package com.eralp.configuration.security;
 
+import com.eralp.configuration.metrics.AuthMetrics;
+import com.eralp.configuration.metrics.AuthOperation;
 import com.eralp.entities.User;
+import com.eralp.exceptions.custom.UserNotFoundException;
 import com.eralp.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -26,6 +29,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class SecurityConfig {
     private final UserRepository userRepository;
+    private final AuthMetrics authMetrics;
 
     /**
      * Creates a {@link UserDetailsService} bean that retrieves a {@link User} object from the {@link UserRepository} by email.
@@ -38,11 +42,13 @@ public class SecurityConfig {
     public UserDetailsService userDetailsService() {
         return username -> {
             // In this project email is used as the username on authentication.
+            long start = System.nanoTime();
             Optional<User> user = userRepository.findActiveUserByEmail(username);
+            authMetrics.record(AuthOperation.USER_LOOKUP, start);
             if (user.isPresent()) {
                 return user.get();
             } else {
-                throw new UsernameNotFoundException("User not found in database!");
+                throw new UserNotFoundException("User not found in database!");
             }
         };
     }
@@ -78,12 +84,13 @@ public class SecurityConfig {
 
     /**
      * This method creates a Bean of type {@link PasswordEncoder} using {@link BCryptPasswordEncoder}.
+     * Hashing and verification are timed by {@link TimedPasswordEncoder}.
      *
      * @return a {@link PasswordEncoder} bean for encoding and checking plain text password
      * @author Eralp Nitelik
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), authMetrics);
     }
 }
@@ -0,0 +1,42 @@
+package com.eralp.configuration.security;
+
+import com.eralp.configuration.metrics.AuthMetrics;
+import com.eralp.configuration.metrics.AuthOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * A {@link PasswordEncoder} that records the duration of hashing and verification with {@link AuthMetrics}.
+ *
+ * @author Eralp Nitelik
+ */
+@RequiredArgsConstructor
+public class TimedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final AuthMetrics authMetrics;
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            authMetrics.record(AuthOperation.PASSWORD_ENCODE, start);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            authMetrics.record(AuthOperation.PASSWORD_VERIFY, start);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,72 @@
+package com.eralp.configuration.security.apikey;
+
+import com.eralp.configuration.metrics.AuthMetrics;
+import com.eralp.configuration.metrics.AuthOperation;
+import com.eralp.configuration.metrics.RejectionReason;
+import com.eralp.configuration.security.authorization.AuthorizationRules;
+import com.eralp.configuration.security.jwt.JwtAuthFilter;
+import com.eralp.repositories.projections.UserPrincipal;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * This class is a filter that authenticates service accounts with the API key in the "X-API-Key" header.
+ * It sets the same {@link UserPrincipal} as {@link JwtAuthFilter}, so authorization and controllers
+ * do not distinguish the two. Requests to paths that are permitted without authentication are not filtered.
+ *
+ * @author Eralp Nitelik
+ */
+@Component
+@RequiredArgsConstructor
+public class ApiKeyAuthFilter extends OncePerRequestFilter {
+    public static final String HEADER = "X-API-Key";
+
+    private final ApiKeyIndex apiKeyIndex;
+    private final AuthorizationRules authorizationRules;
+    private final AuthMetrics authMetrics;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return authorizationRules.isPermitAll(request);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        final String apiKey = request.getHeader(HEADER);
+        if (apiKey != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            long start = System.nanoTime();
+            UserPrincipal principal = apiKeyIndex.verify(apiKey);
+            authMetrics.record(AuthOperation.API_KEY_VERIFY, start);
+            if (principal == null) {
+                authMetrics.reject(RejectionReason.INVALID_API_KEY);
+            } else {
+                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                        principal,
+                        // Sets id as credentials for the ease of use.
+                        principal.id(),
+                        principal.getAuthorities()
+                );
+                authenticationToken.setDetails(
+                        new WebAuthenticationDetailsSource().buildDetails(request)
+                );
+                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
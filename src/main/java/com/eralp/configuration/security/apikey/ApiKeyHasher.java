@@ -0,0 +1,116 @@
+package com.eralp.configuration.security.apikey;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * This class generates API keys and computes their keyed digests.
+ * <p>
+ * A key looks like "sk_&lt;prefix&gt;_&lt;secret&gt;". The prefix is random and unique, it only identifies the key.
+ * The secret has 192 random bits, so a fast HMAC-SHA256 is enough to store it, unlike passwords that need BCrypt.
+ * The HMAC key ("api-key.secret") is not stored in the database, so a leaked table can not be used to verify guesses.
+ *
+ * @author Eralp Nitelik
+ */
+@Component
+public class ApiKeyHasher {
+    private static final String KEY_START = "sk_";
+    private static final int PREFIX_BYTES = 6;
+    private static final int SECRET_BYTES = 24;
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private final ThreadLocal<Mac> macs;
+
+    public ApiKeyHasher(@Value("${api-key.secret}") String secret) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        // Mac is not thread safe, and initializing one costs more than hashing a key.
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException exception) {
+                throw new IllegalStateException(ALGORITHM + " is not available.", exception);
+            }
+        });
+    }
+
+    /**
+     * @return a new random key prefix
+     * @author Eralp Nitelik
+     */
+    public String generatePrefix() {
+        return random(PREFIX_BYTES).replace('_', 'x').replace('-', 'y');
+    }
+
+    /**
+     * @param prefix prefix of the key
+     * @return a new key with the given prefix
+     * @author Eralp Nitelik
+     */
+    public String generateKey(String prefix) {
+        return KEY_START + prefix + "_" + random(SECRET_BYTES);
+    }
+
+    /**
+     * Extracts the prefix of a key without validating the rest of it.
+     *
+     * @param key the key
+     * @return the prefix, or null if the key is not formatted as an API key
+     * @author Eralp Nitelik
+     */
+    public static String prefixOf(String key) {
+        if (!key.startsWith(KEY_START)) {
+            return null;
+        }
+        int end = key.indexOf('_', KEY_START.length());
+        return end < 0 ? null : key.substring(KEY_START.length(), end);
+    }
+
+    /**
+     * @param key the key
+     * @return the HMAC-SHA256 of the key
+     * @author Eralp Nitelik
+     */
+    public byte[] digest(String key) {
+        return macs.get().doFinal(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param key the key
+     * @return the HMAC-SHA256 of the key as lowercase hex, as it is stored
+     * @author Eralp Nitelik
+     */
+    public String digestHex(String key) {
+        return HexFormat.of().formatHex(digest(key));
+    }
+
+    /**
+     * Compares the digest of a key with a stored digest in constant time.
+     *
+     * @param key    the presented key
+     * @param digest the stored digest
+     * @return true if the key matches the digest
+     * @author Eralp Nitelik
+     */
+    public boolean matches(String key, byte[] digest) {
+        return MessageDigest.isEqual(digest(key), digest);
+    }
+
+    private String random(int bytes) {
+        byte[] value = new byte[bytes];
+        random.nextBytes(value);
+        return encoder.encodeToString(value);
+    }
+}
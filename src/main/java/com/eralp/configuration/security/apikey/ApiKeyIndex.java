@@ -0,0 +1,197 @@
+package com.eralp.configuration.security.apikey;
+
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.configuration.invalidation.InvalidationListener;
+import com.eralp.repositories.ApiKeyRepository;
+import com.eralp.repositories.projections.ApiKeyCredential;
+import com.eralp.repositories.projections.UserPrincipal;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class holds the usable API keys in memory, indexed by their prefixes.
+ * Keys are verified with a map lookup and an HMAC, without reading the database.
+ * The index is rebuilt from the database periodically and when keys change on any node, and replaced as a whole.
+ * When a user changes, only the keys of that user are evicted at once and then reloaded.
+ * <p>
+ * Invalidations only evict and request reloads, the reloads run on a single background thread, so the thread that
+ * dispatches invalidations never waits for the database. Full reloads requested while one is pending are coalesced.
+ *
+ * @author Eralp Nitelik
+ */
+@Slf4j
+@Component
+public class ApiKeyIndex implements InvalidationListener {
+    private final ApiKeyRepository apiKeyRepository;
+    private final ApiKeyHasher apiKeyHasher;
+    private final Executor reloader;
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private final Set<String> pendingUsers = ConcurrentHashMap.newKeySet();
+
+    private volatile Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ApiKeyIndex(ApiKeyRepository apiKeyRepository, ApiKeyHasher apiKeyHasher) {
+        this(apiKeyRepository, apiKeyHasher, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "api-key-reloader");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    ApiKeyIndex(ApiKeyRepository apiKeyRepository, ApiKeyHasher apiKeyHasher, Executor reloader) {
+        this.apiKeyRepository = apiKeyRepository;
+        this.apiKeyHasher = apiKeyHasher;
+        this.reloader = reloader;
+    }
+
+    /**
+     * Verifies a key against the index.
+     *
+     * @param key the presented key
+     * @return the {@link UserPrincipal} of the owner, or null if the key is not valid
+     * @author Eralp Nitelik
+     */
+    public UserPrincipal verify(String key) {
+        String prefix = ApiKeyHasher.prefixOf(key);
+        if (prefix == null) {
+            return null;
+        }
+        Entry entry = entries.get(prefix);
+        if (entry == null || !apiKeyHasher.matches(key, entry.digest())) {
+            return null;
+        }
+        return entry.principal();
+    }
+
+    /**
+     * Loads the keys once the application is ready.
+     *
+     * @author Eralp Nitelik
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        reload();
+    }
+
+    /**
+     * Loads the usable keys from the database and replaces the index.
+     *
+     * @return number of usable keys
+     * @author Eralp Nitelik
+     */
+    @Scheduled(fixedDelayString = "${api-key.refresh-interval:PT5M}", initialDelayString = "${api-key.refresh-interval:PT5M}")
+    public synchronized int reload() {
+        Map<String, Entry> loaded = new ConcurrentHashMap<>();
+        for (ApiKeyCredential credential : apiKeyRepository.findAllUsableCredentials()) {
+            loaded.put(credential.prefix(), entryOf(credential));
+        }
+        entries = loaded;
+        log.debug("API keys reloaded, {} keys in effect.", loaded.size());
+        return loaded.size();
+    }
+
+    /**
+     * Loads the usable keys of a user from the database and replaces the keys of the user in the index.
+     *
+     * @param userId id of the user
+     * @author Eralp Nitelik
+     */
+    public synchronized void reloadUser(String userId) {
+        Map<String, Entry> current = entries;
+        current.values().removeIf(entry -> entry.principal().id().equals(userId));
+        for (ApiKeyCredential credential : apiKeyRepository.findUsableCredentialsByUserId(userId)) {
+            current.put(credential.prefix(), entryOf(credential));
+        }
+    }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        switch (event.type()) {
+            case USER_STATE_CHANGED -> {
+                if (InvalidationEvent.ALL_KEYS.equals(event.key())) {
+                    requestReload();
+                } else {
+                    event.keys().forEach(this::evictUser);
+                }
+            }
+            case API_KEYS_CHANGED, ALL -> requestReload();
+            case TOKEN_LOGGED_OUT, TOKENS_REVOKED -> {
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reloader instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Evicts the keys of a user at once, so a disabled user can not authenticate with them anymore,
+     * and reloads the usable ones in the background.
+     *
+     * @param userId id of the user
+     */
+    private void evictUser(String userId) {
+        entries.values().removeIf(entry -> entry.principal().id().equals(userId));
+        if (pendingUsers.add(userId)) {
+            reloader.execute(() -> {
+                pendingUsers.remove(userId);
+                runReload(() -> reloadUser(userId));
+            });
+        }
+    }
+
+    /**
+     * Reloads every key in the background, unless a reload is already pending.
+     * The pending flag is cleared before the reload starts, so a change during the reload is picked up by another one.
+     */
+    private void requestReload() {
+        if (reloadPending.compareAndSet(false, true)) {
+            reloader.execute(() -> {
+                reloadPending.set(false);
+                runReload(this::reload);
+            });
+        }
+    }
+
+    private void runReload(Runnable reload) {
+        try {
+            reload.run();
+        } catch (RuntimeException exception) {
+            log.warn("API keys could not be reloaded, the next reload retries.", exception);
+        }
+    }
+
+    private static Entry entryOf(ApiKeyCredential credential) {
+        return new Entry(
+                HexFormat.of().parseHex(credential.digest()),
+                new UserPrincipal(credential.userId(), credential.email(), credential.roles())
+        );
+    }
+
+    /**
+     * A usable key. The principal is created once, so authenticating a request does not allocate it again.
+     *
+     * @param digest    HMAC of the key
+     * @param principal the owner of the key
+     */
+    private record Entry(byte[] digest, UserPrincipal principal) {
+    }
+}
@@ -0,0 +1,157 @@
+package com.eralp.configuration.security.authorization;
+
+import com.eralp.entities.AuthorizationRule;
+import com.eralp.entities.enums.Role;
+import com.eralp.repositories.AuthorizationRuleRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class holds the compiled {@link PathRuleTrie} of the active {@link AuthorizationRule}s.
+ * Rules are reloaded from the database periodically or on demand, compiled off the request path and swapped atomically,
+ * so requests always see either the old or the new rules as a whole.
+ * Until the database is read, the default rules are used.
+ *
+ * @author Eralp Nitelik
+ */
+@Slf4j
+@Component
+public class AuthorizationRules {
+    private final AuthorizationRuleRepository authorizationRuleRepository;
+    private final AtomicReference<PathRuleTrie> compiled;
+
+    public AuthorizationRules(AuthorizationRuleRepository authorizationRuleRepository) {
+        this.authorizationRuleRepository = authorizationRuleRepository;
+        this.compiled = new AtomicReference<>(PathRuleTrie.compile(defaultRules()));
+    }
+
+    /**
+     * Returns the rules the application is seeded with.
+     * Every call creates new entities, so they can be persisted.
+     *
+     * @return {@link List} of default rules
+     * @author Eralp Nitelik
+     */
+    public static List<AuthorizationRule> defaultRules() {
+        return List.of(
+                // requests below do not need authentication.
+                rule("/auth/**", true),
+                rule("/test", true),
+                rule("/swagger-ui/**", true),
+                rule("/v3/api-docs/**", true),
+                rule("/openapi.json", true),
+                rule("/actuator/health/liveness", true),
+                rule("/actuator/health/readiness", true),
+                // requests below require certain roles to access content. (Most specific pattern decides)
+                rule("/auth/introspect", false, Role.ADMIN),
+                rule("/test/admin", false, Role.ADMIN),
+                rule("/admin/**", false, Role.ADMIN),
+                rule("/actuator/**", false, Role.ADMIN),
+                rule("/test/manager", false, Role.ADMIN, Role.MANAGER),
+                rule("/manager/**", false, Role.ADMIN, Role.MANAGER),
+                rule("/**", false, Role.ADMIN, Role.MANAGER, Role.USER)
+        );
+    }
+
+    /**
+     * Returns the decision of the most specific rule that matches the request.
+     *
+     * @param request the incoming request
+     * @return the decision encoded as described in {@link PathRuleTrie}
+     * @author Eralp Nitelik
+     */
+    public int decisionFor(HttpServletRequest request) {
+        return compiled.get().decisionFor(pathOf(request));
+    }
+
+    /**
+     * @param request the incoming request
+     * @return true if the request is permitted without authentication
+     * @author Eralp Nitelik
+     */
+    public boolean isPermitAll(HttpServletRequest request) {
+        return decisionFor(request) == PathRuleTrie.PERMIT_ALL;
+    }
+
+    /**
+     * Seeds the default rules whose patterns do not exist yet and loads the rules.
+     * Existing rules are never overwritten, and deleted ones are not restored, as they still exist in the table.
+     * Every rule is inserted on its own, so default rules added by later versions are seeded into existing tables,
+     * and nodes that start at the same time only lose the rules that another node inserted first.
+     *
+     * @author Eralp Nitelik
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        Set<String> existing = authorizationRuleRepository.findAllPatterns();
+        for (AuthorizationRule rule : defaultRules()) {
+            if (!existing.contains(rule.getPattern())) {
+                seed(rule);
+            }
+        }
+        reload();
+    }
+
+    /**
+     * Loads the active rules from the database, compiles them and replaces the current rules.
+     * If the rules can not be compiled, the current rules are kept.
+     *
+     * @return number of rules in effect
+     * @author Eralp Nitelik
+     */
+    @Scheduled(fixedDelayString = "${authorization.rules.refresh-interval:PT1M}",
+            initialDelayString = "${authorization.rules.refresh-interval:PT1M}")
+    public int reload() {
+        List<AuthorizationRule> rules = authorizationRuleRepository.findAllActive();
+        try {
+            PathRuleTrie trie = PathRuleTrie.compile(rules);
+            compiled.set(trie);
+            log.debug("Authorization rules reloaded, {} rules in effect.", trie.size());
+            return trie.size();
+        } catch (IllegalArgumentException exception) {
+            log.error("Authorization rules could not be compiled, keeping the current rules. {}", exception.getMessage());
+            return compiled.get().size();
+        }
+    }
+
+    /**
+     * Returns the path of the request within the application, without the context path.
+     *
+     * @param request the incoming request
+     * @return the path starting with "/"
+     */
+    private static String pathOf(HttpServletRequest request) {
+        String pathInfo = request.getPathInfo();
+        return pathInfo == null ? request.getServletPath() : request.getServletPath() + pathInfo;
+    }
+
+    /**
+     * Inserts a default rule. The unique pattern rejects the rule if another node inserted it meanwhile.
+     *
+     * @param rule the default rule
+     */
+    private void seed(AuthorizationRule rule) {
+        try {
+            authorizationRuleRepository.save(rule);
+        } catch (DataIntegrityViolationException exception) {
+            log.debug("Authorization rule {} was seeded by another node.", rule.getPattern());
+        }
+    }
+
+    private static AuthorizationRule rule(String pattern, boolean permitAll, Role... roles) {
+        return AuthorizationRule.builder()
+                .pattern(pattern)
+                .permitAll(permitAll)
+                .roles(roles.length == 0 ? Set.of() : Set.of(roles))
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.eralp.configuration.security.authorization;
+
+import com.eralp.entities.AuthorizationRule;
+import com.eralp.entities.converter.RoleMask;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class is an immutable trie of path segments compiled from {@link AuthorizationRule}s.
+ * Every node keeps the decision of the rule that ends on it and of the "**" rule that starts below it,
+ * so a path is resolved in a single walk over its segments regardless of the number of rules.
+ * <p>
+ * Decisions are encoded as integers. {@link #PERMIT_ALL} permits every request, {@link #AUTHENTICATED} requires
+ * authentication only, and any positive value is the bitmask of the roles that are allowed.
+ * <p>
+ * Literal segments take precedence over "*", and a rule that matches the whole path takes precedence over "**" rules.
+ * Among "**" rules the deepest one wins. The walk does not backtrack, so a literal branch that does not lead to
+ * a match is not retried with "*".
+ *
+ * @author Eralp Nitelik
+ */
+public final class PathRuleTrie {
+    public static final int NO_RULE = Integer.MIN_VALUE;
+    public static final int PERMIT_ALL = -1;
+    public static final int AUTHENTICATED = 0;
+
+    private static final String ANY_SEGMENT = "*";
+    private static final String ANY_REMAINING = "**";
+
+    private final Node root;
+    private final int size;
+
+    private PathRuleTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Compiles the given rules. Later rules with the same pattern replace earlier ones.
+     *
+     * @param rules rules to compile
+     * @return the compiled {@link PathRuleTrie}
+     * @throws IllegalArgumentException if "**" is not the last segment of a pattern
+     * @author Eralp Nitelik
+     */
+    public static PathRuleTrie compile(Iterable<AuthorizationRule> rules) {
+        Node root = new Node();
+        int size = 0;
+        for (AuthorizationRule rule : rules) {
+            add(root, rule.getPattern(), decisionOf(rule));
+            size++;
+        }
+        return new PathRuleTrie(root, size);
+    }
+
+    /**
+     * Returns the encoded decision of a rule.
+     *
+     * @param rule the rule
+     * @return {@link #PERMIT_ALL}, {@link #AUTHENTICATED} or the role bitmask of the rule
+     * @author Eralp Nitelik
+     */
+    public static int decisionOf(AuthorizationRule rule) {
+        return rule.isPermitAll() ? PERMIT_ALL : RoleMask.of(rule.getRoles());
+    }
+
+    /**
+     * Finds the decision of the most specific rule that matches the path.
+     *
+     * @param path the path within the application, starting with "/"
+     * @return the encoded decision, or {@link #NO_RULE} if no rule matches
+     * @author Eralp Nitelik
+     */
+    public int decisionFor(String path) {
+        Node node = root;
+        int best = root.remaining;
+        int length = path.length();
+        int position = path.startsWith("/") ? 1 : 0;
+        while (position < length) {
+            int end = path.indexOf('/', position);
+            if (end < 0) {
+                end = length;
+            }
+            Node next = node.children.get(path.substring(position, end));
+            if (next == null) {
+                next = node.anySegment;
+            }
+            if (next == null) {
+                return best;
+            }
+            node = next;
+            if (node.remaining != NO_RULE) {
+                best = node.remaining;
+            }
+            position = end + 1;
+        }
+        return node.exact != NO_RULE ? node.exact : best;
+    }
+
+    /**
+     * @return number of compiled rules
+     * @author Eralp Nitelik
+     */
+    public int size() {
+        return size;
+    }
+
+    private static void add(Node root, String pattern, int decision) {
+        Node node = root;
+        String[] segments = pattern.split("/");
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (ANY_REMAINING.equals(segment)) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("\"**\" must be the last segment of the pattern: " + pattern);
+                }
+                node.remaining = decision;
+                return;
+            }
+            if (ANY_SEGMENT.equals(segment)) {
+                if (node.anySegment == null) {
+                    node.anySegment = new Node();
+                }
+                node = node.anySegment;
+            } else {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+        node.exact = decision;
+    }
+
+    /**
+     * A path segment. Nodes are only modified while the trie is compiled.
+     */
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Node anySegment;
+        private int exact = NO_RULE;
+        private int remaining = NO_RULE;
+    }
+}
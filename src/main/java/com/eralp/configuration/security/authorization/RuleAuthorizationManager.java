@@ -0,0 +1,73 @@
+package com.eralp.configuration.security.authorization;
+
+import com.eralp.entities.enums.Role;
+import com.eralp.repositories.projections.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * This class authorizes requests with the compiled {@link AuthorizationRules}.
+ * The rule of the path is found in a single trie walk, and roles are checked with a bitmask intersection.
+ * Requests that no rule matches only require authentication.
+ *
+ * @author Eralp Nitelik
+ */
+@Component
+@RequiredArgsConstructor
+public class RuleAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final AuthorizationRules authorizationRules;
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        int decision = authorizationRules.decisionFor(context.getRequest());
+        if (decision == PathRuleTrie.PERMIT_ALL) {
+            return GRANTED;
+        }
+        Authentication current = authentication.get();
+        if (current == null || !current.isAuthenticated() || current instanceof AnonymousAuthenticationToken) {
+            return DENIED;
+        }
+        if (decision == PathRuleTrie.AUTHENTICATED || decision == PathRuleTrie.NO_RULE) {
+            return GRANTED;
+        }
+        return (roleMaskOf(current) & decision) != 0 ? GRANTED : DENIED;
+    }
+
+    /**
+     * Returns the role bitmask of the authenticated user.
+     * {@link UserPrincipal} carries its roles, other principals are resolved from their authorities.
+     *
+     * @param authentication the current authentication
+     * @return bitmask of the roles
+     */
+    private static int roleMaskOf(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.roleMask();
+        }
+        int mask = 0;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name == null || !name.startsWith(ROLE_PREFIX)) {
+                continue;
+            }
+            for (Role role : Role.values()) {
+                if (name.length() == ROLE_PREFIX.length() + role.name().length() && name.endsWith(role.name())) {
+                    mask |= role.getMask();
+                }
+            }
+        }
+        return mask;
+    }
+}
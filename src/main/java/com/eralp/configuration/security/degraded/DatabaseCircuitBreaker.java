@@ -0,0 +1,215 @@
+package com.eralp.configuration.security.degraded;
+
+import com.eralp.configuration.locale.LocaleSelector;
+import com.eralp.exceptions.custom.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * This class is a circuit breaker around the database lookups of the authentication filters.
+ * <p>
+ * While it is {@link State#CLOSED} lookups go to the database. Failed lookups, and lookups slower than
+ * "auth.degraded.slow-call-threshold", are counted, and after "auth.degraded.failure-threshold" of them in a row
+ * the circuit opens. While it is {@link State#OPEN} the database is not called at all, requests are authenticated
+ * by their fallback and writes fail fast with a {@link ServiceUnavailableException} instead of waiting for a connection.
+ * After "auth.degraded.open-duration" a single trial lookup is let through ({@link State#HALF_OPEN}),
+ * which closes the circuit if it succeeds and opens it again if it fails.
+ * <p>
+ * The state is exported as the "auth.degraded.state" gauge and requests served by a fallback are counted by
+ * "auth.degraded.fallbacks".
+ *
+ * @author Eralp Nitelik
+ */
+@Slf4j
+@Component
+public class DatabaseCircuitBreaker {
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final long slowCallNanos;
+    private final Counter fallbacks;
+    private final Counter rejectedWrites;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile State state = State.CLOSED;
+    /*
+        Value of System.nanoTime() when the state last changed, only written while holding the lock.
+     */
+    private volatile long changedAt = System.nanoTime();
+
+    public DatabaseCircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${auth.degraded.failure-threshold:5}") int failureThreshold,
+            @Value("${auth.degraded.open-duration:10s}") Duration openDuration,
+            @Value("${auth.degraded.slow-call-threshold:2s}") Duration slowCallThreshold
+    ) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        Gauge.builder("auth.degraded.state", this, breaker -> breaker.state.ordinal())
+                .description("State of the database circuit breaker, 0 closed, 1 open, 2 half open")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("auth.degraded.fallbacks")
+                .description("Requests authenticated without the database")
+                .register(meterRegistry);
+        this.rejectedWrites = Counter.builder("auth.degraded.rejected.writes")
+                .description("Requests rejected because they need to write to the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the lookup unless the circuit is open. If the circuit is open or the lookup fails with a database error,
+     * the fallback is returned instead.
+     *
+     * @param lookup   reads the database
+     * @param fallback answers without the database
+     * @return the result of the lookup or the fallback
+     * @author Eralp Nitelik
+     */
+    public <T> T call(Supplier<T> lookup, Supplier<T> fallback) {
+        if (!allowRequest()) {
+            fallbacks.increment();
+            return fallback.get();
+        }
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = lookup.get();
+        } catch (DataAccessException | TransactionException exception) {
+            log.debug("Database lookup failed, using the fallback. {}", exception.getMessage());
+            recordFailure();
+            fallbacks.increment();
+            return fallback.get();
+        }
+        recordSuccess(start);
+        return result;
+    }
+
+    /**
+     * Fails fast if the circuit is open. Called before operations that write to the database,
+     * which have no fallback. A write during the half open trial is let through.
+     *
+     * @throws ServiceUnavailableException if the circuit is open
+     * @author Eralp Nitelik
+     */
+    public void ensureWritable() {
+        if (state == State.OPEN && System.nanoTime() - changedAt < openDurationNanos) {
+            rejectedWrites.increment();
+            throw new ServiceUnavailableException(LocaleSelector.withCode("exception.general.service_unavailable"));
+        }
+    }
+
+    /**
+     * @return true if the database should be called
+     * @author Eralp Nitelik
+     */
+    public boolean allowRequest() {
+        return state == State.CLOSED || tryTrial();
+    }
+
+    /**
+     * Records a lookup that completed. A lookup slower than the slow call threshold counts as a failure.
+     *
+     * @param startNanos value of {@link System#nanoTime()} when the lookup started
+     * @author Eralp Nitelik
+     */
+    public void recordSuccess(long startNanos) {
+        if (System.nanoTime() - startNanos >= slowCallNanos) {
+            recordFailure();
+        } else if (state == State.HALF_OPEN) {
+            transition(State.CLOSED);
+        } else if (state == State.CLOSED && consecutiveFailures.get() != 0) {
+            // Only written when there were failures, so successful lookups do not contend on the counter.
+            consecutiveFailures.set(0);
+        }
+    }
+
+    /**
+     * Records a lookup that failed with a database error.
+     *
+     * @author Eralp Nitelik
+     */
+    public void recordFailure() {
+        State current = state;
+        if (current == State.HALF_OPEN
+                || (current == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold)) {
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * @return the current {@link State}
+     * @author Eralp Nitelik
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return consecutive failures counted while the circuit is closed
+     * @author Eralp Nitelik
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * @return time since the state last changed
+     * @author Eralp Nitelik
+     */
+    public Duration timeInState() {
+        return Duration.ofNanos(System.nanoTime() - changedAt);
+    }
+
+    /**
+     * Lets a single trial lookup through once the circuit has been open for the open duration.
+     * A trial that does not report back within the open duration, e.g. because it failed with an error that is not
+     * a database error, is replaced by a new one.
+     *
+     * @return true if the caller makes the trial lookup
+     */
+    private synchronized boolean tryTrial() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (System.nanoTime() - changedAt < openDurationNanos) {
+            return false;
+        }
+        transition(State.HALF_OPEN);
+        return true;
+    }
+
+    private synchronized void transition(State next) {
+        State previous = state;
+        // A late failure of a lookup that started before the circuit opened does not extend the open duration.
+        if (previous == next && next != State.HALF_OPEN) {
+            return;
+        }
+        if (previous == State.OPEN && next == State.CLOSED) {
+            // A late success of a lookup that started before the circuit opened does not close it.
+            return;
+        }
+        state = next;
+        changedAt = System.nanoTime();
+        consecutiveFailures.set(0);
+        switch (next) {
+            case OPEN -> log.warn("Database circuit opened, authenticating without the database for {} ms.",
+                    Duration.ofNanos(openDurationNanos).toMillis());
+            case HALF_OPEN -> log.info("Database circuit half open, trying the database.");
+            case CLOSED -> log.info("Database circuit closed, the database is available again.");
+        }
+    }
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+}
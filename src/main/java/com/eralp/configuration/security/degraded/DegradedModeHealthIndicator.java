@@ -0,0 +1,40 @@
+package com.eralp.configuration.security.degraded;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Reports whether requests are authenticated without the database, as the "degradedMode" component of the health endpoint.
+ * The status is "DEGRADED" while the {@link DatabaseCircuitBreaker} is not closed. It is ordered between "UP" and
+ * "OUT_OF_SERVICE" and mapped to 200, so a degraded node keeps receiving traffic. (management.endpoint.health.status)
+ * The "db" component is DOWN at the same time and decides the overall health, so traffic should be routed by the
+ * readiness group instead, which includes this component but not the database. (/actuator/health/readiness)
+ *
+ * @author Eralp Nitelik
+ */
+@Component("degradedMode")
+@RequiredArgsConstructor
+public class DegradedModeHealthIndicator implements HealthIndicator {
+    public static final Status DEGRADED = new Status("DEGRADED", "Requests are authenticated without the database");
+
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+    private final RevocationSnapshot revocationSnapshot;
+
+    @Override
+    public Health health() {
+        DatabaseCircuitBreaker.State state = databaseCircuitBreaker.getState();
+        Duration snapshotAge = revocationSnapshot.age();
+        return Health.status(state == DatabaseCircuitBreaker.State.CLOSED ? Status.UP : DEGRADED)
+                .withDetail("circuit", state)
+                .withDetail("timeInState", databaseCircuitBreaker.timeInState().toString())
+                .withDetail("consecutiveFailures", databaseCircuitBreaker.getConsecutiveFailures())
+                .withDetail("revokedTokens", revocationSnapshot.size())
+                .withDetail("revocationSnapshotAge", snapshotAge == null ? "never synced" : snapshotAge.toString())
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.eralp.configuration.security.degraded;
+
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.configuration.invalidation.InvalidationListener;
+import com.eralp.configuration.metrics.RejectionReason;
+import com.eralp.repositories.TokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps a local copy of the recent token revocations, so tokens can still be checked against them
+ * while the database is unavailable and requests are authenticated by their signature and expiration only.
+ * <p>
+ * Digests of logged out and revoked tokens are synced from the database every "auth.degraded.revocation-sync-interval",
+ * and kept for "auth.degraded.revocation-retention", after which the tokens are expired anyway.
+ * Logouts are also added as soon as their invalidation events arrive. Revocations and changes of whole users
+ * are kept as the second they happened at, as carried by the event, and tokens of those users that were issued before
+ * that second are rejected. The second is taken by the node that made the change, which is also the node that issues
+ * the token of a login right after revoking the previous ones, so neither a late delivery nor the clock of the receiving
+ * node moves it.
+ * The issue time of a JWT has a precision of a second, so a token issued in the same second as the revocation is not
+ * rejected, which keeps the token of a login that revoked the previous ones usable.
+ * <p>
+ * The snapshot is only as recent as the last sync and the events received since, it narrows the window in which
+ * a revoked token is accepted in degraded mode but does not close it. It is disabled with
+ * "auth.degraded.revocation-snapshot: false".
+ *
+ * @author Eralp Nitelik
+ */
+@Slf4j
+@Component
+public class RevocationSnapshot implements InvalidationListener {
+    /*
+        Rows are committed some time after their updated_at is set, so consecutive syncs overlap by this much.
+     */
+    private static final long SYNC_OVERLAP_MILLIS = 60_000L;
+
+    private final TokenRepository tokenRepository;
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+    private final boolean enabled;
+    private final long retentionMillis;
+
+    /*
+        Digest of the token to the time the entry can be removed at.
+     */
+    private final Map<String, Long> invalidatedDigests = new ConcurrentHashMap<>();
+    /*
+        Id of the user to the epoch second its tokens were revoked or the user was changed at.
+     */
+    private final Map<String, Long> invalidatedUsers = new ConcurrentHashMap<>();
+    private volatile long allInvalidatedAt = Long.MIN_VALUE;
+    private volatile long syncedAt;
+
+    public RevocationSnapshot(
+            TokenRepository tokenRepository,
+            DatabaseCircuitBreaker databaseCircuitBreaker,
+            @Value("${auth.degraded.revocation-snapshot:true}") boolean enabled,
+            @Value("${auth.degraded.revocation-retention:1d}") Duration retention
+    ) {
+        this.tokenRepository = tokenRepository;
+        this.databaseCircuitBreaker = databaseCircuitBreaker;
+        this.enabled = enabled;
+        this.retentionMillis = retention.toMillis();
+    }
+
+    /**
+     * Checks a token against the snapshot.
+     *
+     * @param tokenDigest     digest of the token
+     * @param userId          id of the owner of the token
+     * @param issuedAtSeconds epoch second the token was issued at
+     * @return {@link RejectionReason#REVOKED} if the token or the tokens of its user were invalidated, otherwise null
+     * @author Eralp Nitelik
+     */
+    public RejectionReason rejectionOf(String tokenDigest, String userId, long issuedAtSeconds) {
+        if (!enabled) {
+            return null;
+        }
+        if (invalidatedDigests.containsKey(tokenDigest)) {
+            return RejectionReason.REVOKED;
+        }
+        Long userInvalidatedAt = invalidatedUsers.get(userId);
+        if (issuedAtSeconds < allInvalidatedAt || (userInvalidatedAt != null && issuedAtSeconds < userInvalidatedAt)) {
+            return RejectionReason.REVOKED;
+        }
+        return null;
+    }
+
+    /**
+     * Reads the tokens that were invalidated since the last sync and removes the entries that are past retention.
+     * The sync is skipped while the database circuit is open.
+     *
+     * @return number of digests in the snapshot
+     * @author Eralp Nitelik
+     */
+    @Scheduled(fixedDelayString = "${auth.degraded.revocation-sync-interval:PT30S}")
+    public int sync() {
+        if (!enabled || !databaseCircuitBreaker.allowRequest()) {
+            return invalidatedDigests.size();
+        }
+        long now = System.currentTimeMillis();
+        long since = syncedAt == 0 ? now - retentionMillis : syncedAt - SYNC_OVERLAP_MILLIS;
+        long start = System.nanoTime();
+        List<String> digests;
+        try {
+            digests = tokenRepository.findInvalidatedDigestsSince(new Date(since), new Date(now - retentionMillis));
+        } catch (DataAccessException | TransactionException exception) {
+            databaseCircuitBreaker.recordFailure();
+            log.warn("Revocation snapshot could not be synced. {}", exception.getMessage());
+            return invalidatedDigests.size();
+        }
+        databaseCircuitBreaker.recordSuccess(start);
+        long removeAt = now + retentionMillis;
+        digests.forEach(digest -> invalidatedDigests.put(digest, removeAt));
+        invalidatedDigests.values().removeIf(entryRemoveAt -> entryRemoveAt < now);
+        long retainedSince = (now - retentionMillis) / 1000;
+        invalidatedUsers.values().removeIf(invalidatedAt -> invalidatedAt < retainedSince);
+        syncedAt = now;
+        log.debug("Revocation snapshot synced, {} new and {} total digests.", digests.size(), invalidatedDigests.size());
+        return invalidatedDigests.size();
+    }
+
+    /**
+     * @return number of digests in the snapshot
+     * @author Eralp Nitelik
+     */
+    public int size() {
+        return invalidatedDigests.size();
+    }
+
+    /**
+     * @return time since the last successful sync, or null if the snapshot has not been synced yet
+     * @author Eralp Nitelik
+     */
+    public Duration age() {
+        long synced = syncedAt;
+        return synced == 0 ? null : Duration.ofMillis(System.currentTimeMillis() - synced);
+    }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        switch (event.type()) {
+            case TOKEN_LOGGED_OUT -> invalidatedDigests.put(event.key(), now + retentionMillis);
+            case TOKENS_REVOKED, USER_STATE_CHANGED -> {
+                if (InvalidationEvent.ALL_KEYS.equals(event.key())) {
+                    allInvalidatedAt = Math.max(allInvalidatedAt, event.occurredAt());
+                } else {
+                    event.keys().forEach(userId -> invalidatedUsers.merge(userId, event.occurredAt(), Math::max));
+                }
+            }
+            case API_KEYS_CHANGED, ALL -> {
+            }
+        }
+    }
+}
@@ -1,13 +1,24 @@
 package com.eralp.configuration.security.jwt;
 
-import com.eralp.entities.User;
+import com.eralp.configuration.concurrent.SingleFlight;
+import com.eralp.configuration.metrics.AuthMetrics;
+import com.eralp.configuration.metrics.AuthOperation;
+import com.eralp.configuration.metrics.RejectionReason;
+import com.eralp.configuration.security.authorization.AuthorizationRules;
+import com.eralp.configuration.security.degraded.DatabaseCircuitBreaker;
+import com.eralp.configuration.security.degraded.RevocationSnapshot;
+import com.eralp.configuration.security.opaque.OpaqueSession;
+import com.eralp.configuration.security.opaque.OpaqueTokenStore;
+import com.eralp.exceptions.custom.InvalidTokenException;
 import com.eralp.repositories.TokenRepository;
 import com.eralp.repositories.UserRepository;
+import com.eralp.repositories.projections.TokenStatus;
+import com.eralp.repositories.projections.UserPrincipal;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,20 +27,71 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.Optional;
 
 /**
  * This class is a filter that validates the JWT token in the Authorization header of incoming {@link HttpServletRequest}.
  * If the token is valid, it sets the user details as the current authentication in the security context.
+ * Opaque tokens are resolved from the {@link OpaqueTokenStore} instead, regardless of the token mode that issues new tokens.
+ * Database lookups go through the {@link DatabaseCircuitBreaker}. While the database is unavailable, JWTs are
+ * authenticated by their signature, expiration and claims, and checked against the {@link RevocationSnapshot}.
+ * Requests to paths that are permitted without authentication are not filtered.
  *
  * @author Eralp Nitelik
  */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserRepository userRepository;
     private final TokenRepository tokenRepository;
+    private final AuthorizationRules authorizationRules;
+    private final AuthMetrics authMetrics;
+    private final OpaqueTokenStore opaqueTokenStore;
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+    private final RevocationSnapshot revocationSnapshot;
+
+    /*
+        Parallel requests of a page load carry the same token, they share the lookups that are running instead of
+        querying the same rows at once. Nothing is cached, see SingleFlight. A shared lookup is null if the
+        database was unavailable.
+     */
+    private final SingleFlight<String, Optional<UserPrincipal>> principalLookups;
+    private final SingleFlight<String, Optional<TokenStatus>> tokenStatusLookups;
+
+    public JwtAuthFilter(
+            JwtService jwtService,
+            UserRepository userRepository,
+            TokenRepository tokenRepository,
+            AuthorizationRules authorizationRules,
+            AuthMetrics authMetrics,
+            OpaqueTokenStore opaqueTokenStore,
+            DatabaseCircuitBreaker databaseCircuitBreaker,
+            RevocationSnapshot revocationSnapshot
+    ) {
+        this.jwtService = jwtService;
+        this.userRepository = userRepository;
+        this.tokenRepository = tokenRepository;
+        this.authorizationRules = authorizationRules;
+        this.authMetrics = authMetrics;
+        this.opaqueTokenStore = opaqueTokenStore;
+        this.databaseCircuitBreaker = databaseCircuitBreaker;
+        this.revocationSnapshot = revocationSnapshot;
+        this.principalLookups = new SingleFlight<>(() -> authMetrics.coalesced(AuthOperation.USER_LOOKUP));
+        this.tokenStatusLookups = new SingleFlight<>(() -> authMetrics.coalesced(AuthOperation.TOKEN_LOOKUP));
+    }
+
+    /**
+     * Skips the token validation for paths that are permitted without authentication.
+     *
+     * @param request the incoming request
+     * @return true if the path is permitted without authentication
+     * @author Eralp Nitelik
+     */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return authorizationRules.isPermitAll(request);
+    }
 
     /**
      * This method filters incoming HttpServletRequests and validates the JWT token in the Authorization header.
@@ -50,6 +112,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwtToken;
+        final Claims claims;
         final String username;
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -57,26 +120,158 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             return;
         }
         jwtToken = authHeader.substring(7);
-        username = jwtService.extractUsername(jwtToken);
+        if (OpaqueTokenStore.isOpaque(jwtToken)) {
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                authenticateOpaque(request, jwtToken);
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            claims = jwtService.extractClaims(jwtToken);
+        } catch (InvalidTokenException exception) {
+            authMetrics.reject(RejectionReason.of(exception.getReason()));
+            throw exception;
+        }
+        username = claims.getSubject();
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            Optional<User> userDetails = this.userRepository.findActiveUserByEmail(username);
-            // Did the user create a new token?, Did the user logout?
-            boolean isTokenUsable = tokenRepository.findByToken(jwtToken)
-                    .map(token -> !token.isLoggedOut() && !token.isRevoked())
-                    .orElse(false);
-            if (isTokenUsable && userDetails.isPresent() && jwtService.isTokenValid(jwtToken, userDetails.get())) {
-                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        // Sets id as credentials for the ease of use.
-                        userDetails.get().getId(),
-                        userDetails.get().getAuthorities()
-                );
-                authenticationToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            UserPrincipal principal = lookupPrincipal(jwtToken, claims, username);
+            if (principal != null) {
+                authenticate(request, principal);
             }
         }
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Reads the user and the status of the token from the database, falling back to {@link #degradedPrincipal}
+     * if the database is unavailable. Concurrent requests with the same token or user share the lookups that are
+     * already running. Each lookup goes through the {@link DatabaseCircuitBreaker} inside the shared load, so a failed
+     * or slow query is counted once, not once for every request that waited for it.
+     *
+     * @param jwtToken a verified JWT
+     * @param claims   claims of the token
+     * @param username subject of the token
+     * @return the principal of the token, or null if the token can not be used
+     */
+    private UserPrincipal lookupPrincipal(String jwtToken, Claims claims, String username) {
+        String tokenDigest = TokenDigest.of(jwtToken);
+        // Projections are used as only a few fields are needed and nothing is modified here.
+        long start = System.nanoTime();
+        Optional<UserPrincipal> principal = principalLookups.execute(username, () -> databaseCircuitBreaker.call(
+                () -> userRepository.findActivePrincipalByEmail(username), () -> null));
+        authMetrics.record(AuthOperation.USER_LOOKUP, start);
+        if (principal == null) {
+            return degradedPrincipal(tokenDigest, claims);
+        }
+        // Did the user create a new token?, Did the user logout?
+        start = System.nanoTime();
+        Optional<TokenStatus> tokenStatus = tokenStatusLookups.execute(tokenDigest, () -> databaseCircuitBreaker.call(
+                () -> tokenRepository.findStatusByDigest(tokenDigest), () -> null));
+        authMetrics.record(AuthOperation.TOKEN_LOOKUP, start);
+        if (tokenStatus == null) {
+            return degradedPrincipal(tokenDigest, claims);
+        }
+        RejectionReason rejection = rejectionOf(tokenStatus, principal);
+        if (rejection != null) {
+            authMetrics.reject(rejection);
+            return null;
+        }
+        // The claims were verified above, the token is not parsed again.
+        return jwtService.isTokenValid(claims, principal.get().email()) ? principal.get() : null;
+    }
+
+    /**
+     * Authenticates a JWT by its signature and expiration only, used while the database is unavailable.
+     * The principal is created from the claims of the token, and the token is checked against the {@link RevocationSnapshot}.
+     *
+     * @param tokenDigest digest of a verified JWT
+     * @param claims      claims of the token
+     * @return the principal of the token, or null if the token can not be used
+     */
+    private UserPrincipal degradedPrincipal(String tokenDigest, Claims claims) {
+        UserPrincipal principal = jwtService.principalOf(claims);
+        if (principal == null) {
+            // Issued without the claims that are needed to authenticate it without the database.
+            authMetrics.reject(RejectionReason.UNKNOWN_TOKEN);
+            return null;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        RejectionReason rejection = revocationSnapshot.rejectionOf(
+                tokenDigest,
+                principal.id(),
+                issuedAt == null ? Long.MIN_VALUE : issuedAt.getTime() / 1000
+        );
+        if (rejection != null) {
+            authMetrics.reject(rejection);
+            return null;
+        }
+        return principal;
+    }
+
+    /**
+     * Authenticates the request with the session of an opaque token. This is a single lookup in memory,
+     * the database is only read if the session is not in memory. While the database is unavailable,
+     * only sessions in memory are accepted.
+     *
+     * @param request the incoming request
+     * @param token   the opaque token
+     */
+    private void authenticateOpaque(HttpServletRequest request, String token) {
+        long start = System.nanoTime();
+        OpaqueSession session = opaqueTokenStore.findInMemory(token);
+        if (session == null) {
+            session = databaseCircuitBreaker.call(() -> opaqueTokenStore.find(token), () -> null);
+        }
+        authMetrics.record(AuthOperation.TOKEN_LOOKUP, start);
+        if (session == null) {
+            authMetrics.reject(RejectionReason.UNKNOWN_TOKEN);
+        } else if (session.isExpired(System.currentTimeMillis())) {
+            authMetrics.reject(RejectionReason.EXPIRED);
+        } else {
+            authenticate(request, session.principal());
+        }
+    }
+
+    /**
+     * Sets the principal as the current authentication in the security context.
+     *
+     * @param request   the incoming request
+     * @param principal the authenticated user
+     */
+    private static void authenticate(HttpServletRequest request, UserPrincipal principal) {
+        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                principal,
+                // Sets id as credentials for the ease of use.
+                principal.id(),
+                principal.getAuthorities()
+        );
+        authenticationToken.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    }
+
+    /**
+     * Returns why a token with a valid signature can not be used.
+     *
+     * @param tokenStatus status of the stored token
+     * @param principal   the active user of the token
+     * @return the {@link RejectionReason}, or null if the token is usable
+     */
+    private static RejectionReason rejectionOf(Optional<TokenStatus> tokenStatus, Optional<UserPrincipal> principal) {
+        if (tokenStatus.isEmpty()) {
+            return RejectionReason.UNKNOWN_TOKEN;
+        }
+        if (tokenStatus.get().revoked()) {
+            return RejectionReason.REVOKED;
+        }
+        if (tokenStatus.get().loggedOut()) {
+            return RejectionReason.LOGGED_OUT;
+        }
+        if (principal.isEmpty()) {
+            return RejectionReason.UNKNOWN_USER;
+        }
+        return null;
+    }
 }
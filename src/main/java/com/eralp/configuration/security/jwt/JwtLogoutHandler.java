@@ -1,6 +1,11 @@
 package com.eralp.configuration.security.jwt;
 
-import com.eralp.entities.Token;
+import com.eralp.configuration.invalidation.InvalidationBus;
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.configuration.metrics.AuthMetrics;
+import com.eralp.configuration.metrics.AuthOperation;
+import com.eralp.configuration.security.degraded.DatabaseCircuitBreaker;
+import com.eralp.configuration.security.opaque.OpaqueTokenStore;
 import com.eralp.repositories.TokenRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -11,6 +16,10 @@ import org.springframework.security.web.authentication.logout.LogoutHandler;
 import org.springframework.stereotype.Service;
 
 /**
+ * Logs out the token in the Authorization header with a single conditional update keyed by its digest.
+ * The token is not parsed, a token that was not issued by the application has no stored digest to match.
+ * While the {@link DatabaseCircuitBreaker} is open, logouts fail fast.
+ *
  * @author Eralp Nitelik
  */
 @Service
@@ -18,7 +27,10 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class JwtLogoutHandler implements LogoutHandler {
     private final TokenRepository tokenRepository;
-    private final JwtService jwtService;
+    private final AuthMetrics authMetrics;
+    private final InvalidationBus invalidationBus;
+    private final OpaqueTokenStore opaqueTokenStore;
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
 
     @Override
     public void logout(
@@ -32,11 +44,16 @@ public class JwtLogoutHandler implements LogoutHandler {
             return;
         }
         jwtToken = authHeader.substring(7);
-        Token storedToken = tokenRepository.findByToken(jwtToken).orElse(null);
-        if (storedToken != null) {
-            storedToken.setLoggedOut(true);
-            tokenRepository.save(storedToken);
-            log.info("{} logged out.", jwtService.extractUsername(jwtToken));
+        databaseCircuitBreaker.ensureWritable();
+        String tokenDigest = TokenDigest.of(jwtToken);
+        long start = System.nanoTime();
+        int updated = tokenRepository.logoutByDigest(tokenDigest);
+        authMetrics.record(AuthOperation.TOKEN_REVOKE, start);
+        if (updated > 0) {
+            // The event reaches this node as well, but possibly later.
+            opaqueTokenStore.remove(jwtToken);
+            invalidationBus.publish(InvalidationEvent.tokenLoggedOut(tokenDigest));
+            log.debug("Token {} logged out.", tokenDigest);
         }
     }
 }
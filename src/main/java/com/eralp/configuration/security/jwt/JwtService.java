@@ -1,10 +1,20 @@
 package com.eralp.configuration.security.jwt;
 
+import com.eralp.configuration.metrics.AuthMetrics;
+import com.eralp.configuration.metrics.AuthOperation;
+import com.eralp.entities.User;
+import com.eralp.entities.converter.RoleMask;
+import com.eralp.exceptions.custom.InvalidTokenException;
+import com.eralp.repositories.projections.UserPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -24,6 +34,7 @@ import java.util.function.Function;
  * @author Eralp Nitelik
  */
 @Service
+@RequiredArgsConstructor
 public class JwtService {
     /**
      * Secret key needs to be secure as it is used to sign tokens.
@@ -40,6 +51,14 @@ public class JwtService {
      */
     private static final long timeToExpire = 86_400_000L; // 1 Day
 
+    /**
+     * Claims that let a token be authenticated without the database, see {@link #principalOf(Claims)}.
+     */
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLES_CLAIM = "roles";
+
+    private final AuthMetrics authMetrics;
+
     /**
      * This method generates a JWT token with the given claims and {@link UserDetails}. Expiration date is hardcoded, it can be modified if necessary.
      *
@@ -60,13 +79,36 @@ public class JwtService {
 
     /**
      * Generates the token from {@link UserDetails} only.
+     * If the user details are a {@link User}, its id and role bitmask are added as claims.
      *
      * @param userDetails given userDetails
      * @return a token generated from given userDetails
      * @author Eralp Nitelik
      */
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user && user.getId() != null) {
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(ROLES_CLAIM, RoleMask.of(user.getRoles()));
+        }
+        return generateToken(claims, userDetails);
+    }
+
+    /**
+     * Creates the principal of a verified token from its claims only. Roles are the ones the user had when the token
+     * was issued, so this is only used when the database can not be read.
+     *
+     * @param claims verified claims of the token
+     * @return the {@link UserPrincipal}, or null if the token does not carry the user id and roles
+     * @author Eralp Nitelik
+     */
+    public UserPrincipal principalOf(Claims claims) {
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        Integer roles = claims.get(ROLES_CLAIM, Integer.class);
+        if (userId == null || roles == null || claims.getSubject() == null) {
+            return null;
+        }
+        return new UserPrincipal(userId, claims.getSubject(), RoleMask.toRoles(roles));
     }
 
     /**
@@ -78,8 +120,33 @@ public class JwtService {
      * @author Eralp Nitelik
      */
     public boolean isTokenValid(String jwtToken, UserDetails userDetails) {
-        final String username = extractUsername(jwtToken);
-        return isTokenNotExpired(jwtToken) && username.equals(userDetails.getUsername());
+        return isTokenValid(jwtToken, userDetails.getUsername());
+    }
+
+    /**
+     * This method checks if a JWT token is valid for a given username.
+     *
+     * @param jwtToken the JWT token to validate.
+     * @param username the username to compare the token's subject with
+     * @return true if the token is valid, false otherwise
+     * @author Eralp Nitelik
+     */
+    public boolean isTokenValid(String jwtToken, String username) {
+        return isTokenNotExpired(jwtToken) && extractUsername(jwtToken).equals(username);
+    }
+
+    /**
+     * This method checks if the already verified claims of a JWT token are valid for a given username,
+     * without parsing the token again.
+     *
+     * @param claims   verified claims of the token
+     * @param username the username to compare the token's subject with
+     * @return true if the token is valid, false otherwise
+     * @author Eralp Nitelik
+     */
+    public boolean isTokenValid(Claims claims, String username) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.after(new Date()) && username.equals(claims.getSubject());
     }
 
     /**
@@ -115,6 +182,33 @@ public class JwtService {
         return extractClaim(jwtToken, Claims::getSubject);
     }
 
+    /**
+     * Verifies the signature and expiration of a token.
+     *
+     * @param jwtToken the JWT token to verify
+     * @return the {@link Claims} of the token
+     * @throws InvalidTokenException if the token is expired, has a wrong signature or is malformed
+     * @author Eralp Nitelik
+     */
+    public Claims extractClaims(String jwtToken) {
+        return extractAllClaims(jwtToken);
+    }
+
+    /**
+     * Verifies the signature and expiration of a token without throwing for invalid tokens.
+     *
+     * @param jwtToken the JWT token to verify
+     * @return the {@link Claims} of the token, or null if the token is invalid
+     * @author Eralp Nitelik
+     */
+    public Claims verify(String jwtToken) {
+        try {
+            return extractAllClaims(jwtToken);
+        } catch (InvalidTokenException exception) {
+            return null;
+        }
+    }
+
     /**
      * Extracts a specific claim from a given JWT token using a {@link Claims} resolver function.
      *
@@ -130,18 +224,32 @@ public class JwtService {
 
     /**
      * Extracts all claims from a given JWT token.
+     * Exceptions of the jwt library are replaced with a stackless {@link InvalidTokenException}.
+     * Parsing and verification are timed, including the failed ones.
      *
      * @param jwtToken the JWT token from which to extract the claims
      * @return a {@link Claims} object containing all claims from the token
+     * @throws InvalidTokenException if the token is expired, has a wrong signature or is malformed
      * @author Eralp Nitelik
      */
     private Claims extractAllClaims(String jwtToken) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(jwtToken)
-                .getBody();
+        long start = System.nanoTime();
+        try {
+            return Jwts
+                    .parserBuilder()
+                    .setSigningKey(getSignInKey())
+                    .build()
+                    .parseClaimsJws(jwtToken)
+                    .getBody();
+        } catch (ExpiredJwtException exception) {
+            throw new InvalidTokenException(InvalidTokenException.Reason.EXPIRED, exception.getMessage());
+        } catch (SecurityException exception) {
+            throw new InvalidTokenException(InvalidTokenException.Reason.BAD_SIGNATURE, exception.getMessage());
+        } catch (JwtException | IllegalArgumentException exception) {
+            throw new InvalidTokenException(InvalidTokenException.Reason.MALFORMED, exception.getMessage());
+        } finally {
+            authMetrics.record(AuthOperation.JWT_PARSE, start);
+        }
     }
 
     /**
@@ -0,0 +1,32 @@
+package com.eralp.configuration.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Computes the SHA-256 digest of a token. The digest identifies a token where the token itself should not be
+ * exposed, e.g. in events sent to other nodes.
+ *
+ * @author Eralp Nitelik
+ */
+public final class TokenDigest {
+    private TokenDigest() {
+    }
+
+    /**
+     * @param token the token
+     * @return the SHA-256 digest of the token as lowercase hex
+     * @author Eralp Nitelik
+     */
+    public static String of(String token) {
+        try {
+            // MessageDigest is not thread safe, and creating one is cheap compared to the hashing.
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available.", exception);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.eralp.configuration.security.opaque;
+
+import com.eralp.repositories.projections.UserPrincipal;
+
+/**
+ * An in-memory session of an opaque token. The principal is created once when the session is stored,
+ * so authenticating a request does not allocate it again.
+ *
+ * @param principal       the owner of the token
+ * @param tokenDigest     digest of the token, see {@link com.eralp.configuration.security.jwt.TokenDigest}
+ * @param expiresAtMillis expiration time in epoch milliseconds
+ * @author Eralp Nitelik
+ */
+public record OpaqueSession(UserPrincipal principal, String tokenDigest, long expiresAtMillis) {
+    /**
+     * @param nowMillis current time in epoch milliseconds
+     * @return true if the session has expired
+     */
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
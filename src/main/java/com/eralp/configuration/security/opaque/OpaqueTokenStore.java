@@ -0,0 +1,436 @@
+package com.eralp.configuration.security.opaque;
+
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.configuration.invalidation.InvalidationListener;
+import com.eralp.configuration.security.jwt.TokenDigest;
+import com.eralp.repositories.TokenRepository;
+import com.eralp.repositories.projections.TokenSession;
+import com.eralp.repositories.projections.UserPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps the sessions of opaque reference tokens in memory.
+ * An opaque token is 128 random bits followed by the first 64 bits of their HMAC-SHA256, encoded as 32 URL-safe
+ * characters. Unlike a JWT it carries no data, so authenticating it is a single hash lookup without parsing or
+ * verifying a signature.
+ * <p>
+ * The tokens table is the durable copy. A token that is not in memory, e.g. after a restart or when it was issued
+ * by another node, is restored from the database once. Before that its MAC is checked with "auth.opaque-token.secret",
+ * so made up tokens are rejected without a query, and tokens that are not found are remembered for
+ * "auth.opaque-token.miss-time-to-live", so a logged out token is not queried again on every request.
+ * Logouts, revocations and user changes are applied through the {@link com.eralp.configuration.invalidation.InvalidationBus}.
+ * <p>
+ * Lookups never lock. Sessions are stored and invalidated under a single lock, and every invalidation advances the
+ * generation. A session read from the database is only stored if the generation did not advance since the read began,
+ * so a logout or revocation that happens during the read can not be undone by storing the session afterwards.
+ *
+ * @author Eralp Nitelik
+ */
+@Slf4j
+@Component
+public class OpaqueTokenStore implements InvalidationListener {
+    private static final int RANDOM_BYTES = 16;
+    private static final int MAC_BYTES = 8;
+    private static final int TOKEN_LENGTH = 32;
+    private static final String ALGORITHM = "HmacSHA256";
+    /**
+     * Misses are only remembered up to this many tokens, so the memory stays bounded.
+     */
+    private static final int MAX_MISSES = 10_000;
+
+    private final TokenRepository tokenRepository;
+    private final long timeToLiveMillis;
+    private final long missTimeToLiveMillis;
+    private final ThreadLocal<Mac> macs;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private final Base64.Decoder decoder = Base64.getUrlDecoder();
+    private final Map<String, OpaqueSession> sessions = new ConcurrentHashMap<>();
+    /*
+        Tokens that were not found in the database, mapped to when they are forgotten in epoch milliseconds.
+     */
+    private final Map<String, Long> misses = new ConcurrentHashMap<>();
+    private final Map<String, String> tokensByDigest = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> tokensByUser = new ConcurrentHashMap<>();
+    /*
+        Guards every change of the maps above, lookups read them without it.
+     */
+    private final Object lock = new Object();
+    /*
+        Advanced under the lock by every invalidation, so a session read concurrently with an invalidation is not stored.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public OpaqueTokenStore(
+            TokenRepository tokenRepository,
+            @Value("${auth.opaque-token.secret}") String secret,
+            @Value("${auth.opaque-token.time-to-live:1d}") Duration timeToLive,
+            @Value("${auth.opaque-token.miss-time-to-live:1m}") Duration missTimeToLive
+    ) {
+        this.tokenRepository = tokenRepository;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.missTimeToLiveMillis = missTimeToLive.toMillis();
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        // Mac is not thread safe, and initializing one costs more than authenticating a token.
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException exception) {
+                throw new IllegalStateException(ALGORITHM + " is not available.", exception);
+            }
+        });
+    }
+
+    /**
+     * @param token a bearer token
+     * @return true if the token is an opaque token rather than a JWT
+     * @author Eralp Nitelik
+     */
+    public static boolean isOpaque(String token) {
+        return token.length() == TOKEN_LENGTH && token.indexOf('.') < 0;
+    }
+
+    /**
+     * @return a new random opaque token
+     * @author Eralp Nitelik
+     */
+    public String generate() {
+        byte[] bytes = new byte[RANDOM_BYTES + MAC_BYTES];
+        random.nextBytes(bytes);
+        System.arraycopy(mac(bytes), 0, bytes, RANDOM_BYTES, MAC_BYTES);
+        return encoder.encodeToString(bytes);
+    }
+
+    /**
+     * Returns the current generation, which is advanced by every invalidation.
+     * Read it before the token is stored in the database and pass it to {@link #put}.
+     *
+     * @return the current generation
+     * @author Eralp Nitelik
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Stores the session of a newly issued token, unless sessions were invalidated since the given generation.
+     * A session that is not stored is restored from the database on its first use.
+     *
+     * @param token       the token
+     * @param tokenDigest digest of the token
+     * @param principal   the owner of the token
+     * @param generation  the {@link #generation()} read before the token was stored in the database
+     * @return true if the session was stored
+     * @author Eralp Nitelik
+     */
+    public boolean put(String token, String tokenDigest, UserPrincipal principal, long generation) {
+        return store(token, new OpaqueSession(principal, tokenDigest, System.currentTimeMillis() + timeToLiveMillis), generation);
+    }
+
+    /**
+     * Finds the session of a token, restoring it from the database if it is not in memory.
+     *
+     * @param token the token
+     * @return the {@link OpaqueSession}, which might be expired, or null if the token is unknown or not usable
+     * @author Eralp Nitelik
+     */
+    public OpaqueSession find(String token) {
+        OpaqueSession session = sessions.get(token);
+        return session != null ? session : restore(token);
+    }
+
+    /**
+     * Finds the sessions of the tokens, restoring the ones that are not in memory from the database with a single query.
+     *
+     * @param tokens the tokens
+     * @return {@link Map} of tokens to their {@link OpaqueSession}, which might be expired,
+     * unknown or unusable tokens are not included
+     * @author Eralp Nitelik
+     */
+    public Map<String, OpaqueSession> findAll(Collection<String> tokens) {
+        Map<String, OpaqueSession> found = new HashMap<>();
+        Map<String, String> unknownByDigest = new HashMap<>();
+        for (String token : tokens) {
+            OpaqueSession session = sessions.get(token);
+            if (session != null) {
+                found.put(token, session);
+            } else if (isRestorable(token)) {
+                unknownByDigest.put(TokenDigest.of(token), token);
+            }
+        }
+        if (unknownByDigest.isEmpty()) {
+            return found;
+        }
+        long generationBefore = generation.get();
+        List<TokenSession> stored = tokenRepository.findSessionsByDigestIn(unknownByDigest.keySet());
+        for (TokenSession tokenSession : stored) {
+            String token = unknownByDigest.remove(tokenSession.tokenDigest());
+            OpaqueSession session = sessionOf(tokenSession);
+            found.put(token, session);
+            store(token, session, generationBefore);
+        }
+        unknownByDigest.values().forEach(this::rememberMiss);
+        return found;
+    }
+
+    /**
+     * Finds the sessions of the tokens in memory only, without falling back to the database.
+     *
+     * @param tokens the tokens
+     * @return {@link Map} of tokens to their {@link OpaqueSession}, which might be expired,
+     * tokens that are not in memory are not included
+     * @author Eralp Nitelik
+     */
+    public Map<String, OpaqueSession> findAllInMemory(Collection<String> tokens) {
+        Map<String, OpaqueSession> found = new HashMap<>();
+        for (String token : tokens) {
+            OpaqueSession session = sessions.get(token);
+            if (session != null) {
+                found.put(token, session);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the session of a token in memory only, without falling back to the database.
+     *
+     * @param token the token
+     * @return the {@link OpaqueSession}, which might be expired, or null if the session is not in memory
+     * @author Eralp Nitelik
+     */
+    public OpaqueSession findInMemory(String token) {
+        return sessions.get(token);
+    }
+
+    /**
+     * Removes the session of a token. A session of the token that is being restored concurrently is not stored.
+     *
+     * @param token the token
+     * @author Eralp Nitelik
+     */
+    public void remove(String token) {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            removeSession(token);
+        }
+    }
+
+    /**
+     * Removes every session of a user. Sessions of the user that are being restored concurrently are not stored.
+     *
+     * @param userId id of the user
+     * @author Eralp Nitelik
+     */
+    public void removeUser(String userId) {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            Set<String> tokens = tokensByUser.remove(userId);
+            if (tokens != null) {
+                tokens.forEach(this::removeSession);
+            }
+        }
+    }
+
+    /**
+     * @return number of sessions in memory
+     * @author Eralp Nitelik
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        switch (event.type()) {
+            case TOKEN_LOGGED_OUT -> removeDigest(event.key());
+            case TOKENS_REVOKED, USER_STATE_CHANGED -> {
+                if (InvalidationEvent.ALL_KEYS.equals(event.key())) {
+                    clear();
+                } else {
+                    event.keys().forEach(this::removeUser);
+                }
+            }
+            case ALL -> clear();
+            case API_KEYS_CHANGED -> {
+            }
+        }
+    }
+
+    /**
+     * Removes expired sessions and forgets expired misses. Expired sessions are rejected on lookup anyway,
+     * this only frees the memory.
+     *
+     * @author Eralp Nitelik
+     */
+    @Scheduled(fixedDelayString = "${auth.opaque-token.cleanup-interval:PT1M}")
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        misses.values().removeIf(forgetAt -> forgetAt <= now);
+        int before = sessions.size();
+        sessions.forEach((token, session) -> {
+            if (session.isExpired(now)) {
+                synchronized (lock) {
+                    removeSession(token);
+                }
+            }
+        });
+        log.debug("{} expired opaque token sessions removed.", before - sessions.size());
+    }
+
+    /**
+     * Stores a session unless sessions were invalidated since the given generation.
+     * The check and the store are atomic, as invalidations hold the same lock.
+     *
+     * @param token      the token
+     * @param session    the session of the token
+     * @param generation the generation read before the session was read or created
+     * @return true if the session was stored
+     */
+    private boolean store(String token, OpaqueSession session, long generation) {
+        synchronized (lock) {
+            if (this.generation.get() != generation) {
+                return false;
+            }
+            sessions.put(token, session);
+            tokensByDigest.put(session.tokenDigest(), token);
+            tokensByUser.computeIfAbsent(session.principal().id(), userId -> ConcurrentHashMap.newKeySet()).add(token);
+            return true;
+        }
+    }
+
+    /**
+     * Removes the session of the token with the given digest.
+     *
+     * @param tokenDigest digest of the token
+     */
+    private void removeDigest(String tokenDigest) {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            Optional.ofNullable(tokensByDigest.get(tokenDigest)).ifPresent(this::removeSession);
+        }
+    }
+
+    /**
+     * Removes the session of a token from every map. Must be called while holding the lock.
+     *
+     * @param token the token
+     */
+    private void removeSession(String token) {
+        OpaqueSession session = sessions.remove(token);
+        if (session == null) {
+            return;
+        }
+        tokensByDigest.remove(session.tokenDigest());
+        Set<String> userTokens = tokensByUser.get(session.principal().id());
+        if (userTokens != null) {
+            userTokens.remove(token);
+            if (userTokens.isEmpty()) {
+                tokensByUser.remove(session.principal().id());
+            }
+        }
+    }
+
+    /**
+     * Restores the session of a token that is not in memory from the database.
+     *
+     * @param token the token
+     * @return the restored {@link OpaqueSession}, or null if the token is unknown or not usable
+     */
+    private OpaqueSession restore(String token) {
+        if (!isRestorable(token)) {
+            return null;
+        }
+        long generationBefore = generation.get();
+        Optional<TokenSession> stored = tokenRepository.findSessionByDigest(TokenDigest.of(token));
+        if (stored.isEmpty()) {
+            rememberMiss(token);
+            return null;
+        }
+        OpaqueSession session = sessionOf(stored.get());
+        store(token, session, generationBefore);
+        return session;
+    }
+
+    private OpaqueSession sessionOf(TokenSession tokenSession) {
+        return new OpaqueSession(
+                new UserPrincipal(tokenSession.userId(), tokenSession.email(), tokenSession.roles()),
+                tokenSession.tokenDigest(),
+                tokenSession.issuedAt().getTime() + timeToLiveMillis
+        );
+    }
+
+    /**
+     * Checks whether a token that is not in memory is worth a query: it is formatted as an opaque token,
+     * it was not missed recently and its MAC matches. Neither requires hashing the token or the database.
+     *
+     * @param token the token
+     * @return true if the token should be looked up in the database
+     */
+    private boolean isRestorable(String token) {
+        if (!isOpaque(token)) {
+            return false;
+        }
+        Long forgetAt = misses.get(token);
+        if (forgetAt != null && forgetAt > System.currentTimeMillis()) {
+            return false;
+        }
+        byte[] bytes;
+        try {
+            bytes = decoder.decode(token);
+        } catch (IllegalArgumentException exception) {
+            return false;
+        }
+        return bytes.length == RANDOM_BYTES + MAC_BYTES
+                && MessageDigest.isEqual(Arrays.copyOf(mac(bytes), MAC_BYTES), Arrays.copyOfRange(bytes, RANDOM_BYTES, bytes.length));
+    }
+
+    private void rememberMiss(String token) {
+        if (misses.size() < MAX_MISSES) {
+            misses.put(token, System.currentTimeMillis() + missTimeToLiveMillis);
+        }
+    }
+
+    /**
+     * @param bytes random bytes of a token, followed by anything
+     * @return the HMAC-SHA256 of the random bytes
+     */
+    private byte[] mac(byte[] bytes) {
+        Mac mac = macs.get();
+        mac.update(bytes, 0, RANDOM_BYTES);
+        return mac.doFinal();
+    }
+
+    private void clear() {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            sessions.clear();
+            tokensByDigest.clear();
+            tokensByUser.clear();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.eralp.configuration.sql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * This class registers the {@link SqlStatementFilter} when "sql.statements.enabled" is true.
+ * Statements themselves are counted by {@link SqlStatementListener}, which is registered in application.yml.
+ *
+ * @author Eralp Nitelik
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql.statements.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatementConfig {
+    /**
+     * Registers the {@link SqlStatementFilter} right after the Server-Timing filter, before the security filters.
+     *
+     * @param meterRegistry the registry of the metrics
+     * @param budget        statements a single request may execute before it is reported
+     * @return the {@link FilterRegistrationBean} of the filter
+     * @author Eralp Nitelik
+     */
+    @Bean
+    public FilterRegistrationBean<SqlStatementFilter> sqlStatementFilter(
+            MeterRegistry meterRegistry,
+            @Value("${sql.statements.budget:5}") int budget
+    ) {
+        FilterRegistrationBean<SqlStatementFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementFilter(meterRegistry, budget));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,84 @@
+package com.eralp.configuration.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This filter records the SQL statements of each request as the "http.server.requests.sql.statements" summary
+ * and the "http.server.requests.sql.time" timer, tagged with the request mapping.
+ * Requests that execute more statements than the budget are logged as warnings and counted in
+ * "http.server.requests.sql.budget.exceeded", so new N+1 queries and extra round trips show up quickly.
+ *
+ * @author Eralp Nitelik
+ */
+@Slf4j
+public class SqlStatementFilter extends OncePerRequestFilter {
+    private static final String UNMAPPED = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final int budget;
+
+    public SqlStatementFilter(MeterRegistry meterRegistry, int budget) {
+        this.meterRegistry = meterRegistry;
+        this.budget = budget;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        SqlStatementSnapshot start = SqlStatementStats.snapshot();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            record(request, SqlStatementStats.snapshot().since(start));
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementSnapshot statements) {
+        String uri = uriOf(request);
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .tag("uri", uri)
+                .description("SQL statements executed per request")
+                .register(meterRegistry)
+                .record(statements.count());
+        Timer.builder("http.server.requests.sql.time")
+                .tag("uri", uri)
+                .description("Time spent executing SQL statements per request")
+                .register(meterRegistry)
+                .record(statements.nanos(), TimeUnit.NANOSECONDS);
+        if (statements.count() > budget) {
+            meterRegistry.counter("http.server.requests.sql.budget.exceeded", "uri", uri).increment();
+            log.warn("{} {} executed {} SQL statements in {} ms, the budget is {}.", request.getMethod(), uri,
+                    statements.count(), TimeUnit.NANOSECONDS.toMillis(statements.nanos()), budget);
+        } else {
+            log.debug("{} {} executed {} SQL statements in {} us.", request.getMethod(), uri,
+                    statements.count(), TimeUnit.NANOSECONDS.toMicros(statements.nanos()));
+        }
+    }
+
+    /**
+     * Uses the mapping pattern instead of the path, so path variables do not create a meter per value.
+     *
+     * @param request the request
+     * @return the pattern of the handler, or {@link #UNMAPPED} if no handler was found, e.g. for logout
+     */
+    private static String uriOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? UNMAPPED : pattern.toString();
+    }
+}
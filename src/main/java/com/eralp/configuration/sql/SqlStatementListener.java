@@ -0,0 +1,31 @@
+package com.eralp.configuration.sql;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Reports every JDBC statement and batch that Hibernate executes to {@link SqlStatementStats}.
+ * Hibernate creates an instance per session, it is registered with "hibernate.session.events.auto".
+ *
+ * @author Eralp Nitelik
+ */
+public class SqlStatementListener implements SessionEventListener {
+    @Override
+    public void jdbcExecuteStatementStart() {
+        SqlStatementStats.statementStarted();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        SqlStatementStats.statementEnded();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        SqlStatementStats.statementStarted();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        SqlStatementStats.statementEnded();
+    }
+}
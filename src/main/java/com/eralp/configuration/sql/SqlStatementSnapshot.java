@@ -0,0 +1,19 @@
+package com.eralp.configuration.sql;
+
+/**
+ * Number and total execution time of the SQL statements of a thread, either in total or since a previous snapshot.
+ *
+ * @param count number of executed statements, a JDBC batch counts as one
+ * @param nanos total execution time in nanoseconds
+ * @author Eralp Nitelik
+ */
+public record SqlStatementSnapshot(long count, long nanos) {
+    /**
+     * @param earlier a snapshot taken earlier on the same thread
+     * @return the statements executed since the earlier snapshot
+     * @author Eralp Nitelik
+     */
+    public SqlStatementSnapshot since(SqlStatementSnapshot earlier) {
+        return new SqlStatementSnapshot(count - earlier.count, nanos - earlier.nanos);
+    }
+}
@@ -0,0 +1,59 @@
+package com.eralp.configuration.sql;
+
+/**
+ * This class counts the SQL statements executed by Hibernate on each thread, and their execution time.
+ * Counters only increase, so scopes such as a request or a test take a {@link #snapshot()} at their start and
+ * compute the difference at their end. Scopes can be nested without resetting each other.
+ * <p>
+ * Statements are reported by {@link SqlStatementListener}. Second-level cache hits execute no statement and are not counted.
+ * <p>
+ * Only statements executed by Hibernate are counted. Statements executed through {@code JdbcTemplate} or a plain
+ * {@code DataSource} bypass Hibernate and are not part of the count, nor of the budget of {@link SqlStatementFilter}.
+ * On request threads this is the {@code pg_notify} of
+ * {@link com.eralp.configuration.invalidation.PostgresInvalidationBus#publish}, one statement for each login, logout,
+ * logout-all, user deletion and API key change while "invalidation.bus" is "postgres". The other {@code JdbcTemplate} users,
+ * the history writer and the archiver, run on their own threads.
+ *
+ * @author Eralp Nitelik
+ */
+public final class SqlStatementStats {
+    private static final ThreadLocal<Counters> COUNTERS = ThreadLocal.withInitial(Counters::new);
+
+    private SqlStatementStats() {
+    }
+
+    /**
+     * @return the statements executed on this thread so far
+     * @author Eralp Nitelik
+     */
+    public static SqlStatementSnapshot snapshot() {
+        Counters counters = COUNTERS.get();
+        return new SqlStatementSnapshot(counters.count, counters.nanos);
+    }
+
+    /**
+     * Marks the start of a statement on this thread.
+     *
+     * @author Eralp Nitelik
+     */
+    static void statementStarted() {
+        COUNTERS.get().start = System.nanoTime();
+    }
+
+    /**
+     * Counts a finished statement on this thread.
+     *
+     * @author Eralp Nitelik
+     */
+    static void statementEnded() {
+        Counters counters = COUNTERS.get();
+        counters.count++;
+        counters.nanos += System.nanoTime() - counters.start;
+    }
+
+    private static final class Counters {
+        private long count;
+        private long nanos;
+        private long start;
+    }
+}
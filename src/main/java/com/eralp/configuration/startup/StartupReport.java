@@ -0,0 +1,84 @@
+package com.eralp.configuration.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class logs the slowest bean initializations once the application is ready.
+ * Steps are recorded only if the application is started with a {@link BufferingApplicationStartup},
+ * the whole timeline can be read from the "startup" actuator endpoint.
+ * <p>
+ * Durations of a bean include the beans that were created as its dependencies.
+ *
+ * @author Eralp Nitelik
+ */
+@Slf4j
+@Component
+public class StartupReport {
+    private static final String BEAN_INSTANTIATION_STEP = "spring.beans.instantiate";
+
+    private final ObjectProvider<BufferingApplicationStartup> applicationStartup;
+    private final int limit;
+
+    public StartupReport(ObjectProvider<BufferingApplicationStartup> applicationStartup,
+                         @Value("${startup.report.limit:10}") int limit) {
+        this.applicationStartup = applicationStartup;
+        this.limit = limit;
+    }
+
+    /**
+     * Logs the total startup time and the slowest bean instantiations.
+     * The buffered timeline is not drained, so the actuator endpoint still returns it afterwards.
+     *
+     * @param event the event published when the application is ready to serve requests
+     * @author Eralp Nitelik
+     */
+    @EventListener
+    public void report(ApplicationReadyEvent event) {
+        BufferingApplicationStartup startup = applicationStartup.getIfAvailable();
+        if (startup == null || limit <= 0) {
+            return;
+        }
+        StartupTimeline timeline = startup.getBufferedTimeline();
+        List<StartupTimeline.TimelineEvent> slowest = timeline.getEvents().stream()
+                .filter(timelineEvent -> BEAN_INSTANTIATION_STEP.equals(timelineEvent.getStartupStep().getName()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(limit)
+                .toList();
+        StringBuilder report = new StringBuilder()
+                .append("Application ready in ")
+                .append(event.getTimeTaken() == null ? "?" : event.getTimeTaken().toMillis())
+                .append(" ms, ")
+                .append(timeline.getEvents().size())
+                .append(" startup steps recorded. Slowest bean instantiations:");
+        slowest.forEach(timelineEvent -> report
+                .append(System.lineSeparator())
+                .append(String.format("%8d ms  %s", timelineEvent.getDuration().toMillis(), beanName(timelineEvent.getStartupStep()))));
+        log.info(report.toString());
+    }
+
+    /**
+     * Returns the "beanName" tag of a bean instantiation step.
+     *
+     * @param step the recorded step
+     * @return name of the bean, or the step name if the tag is missing
+     */
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+}
@@ -1,5 +1,6 @@
 package com.eralp.configuration.swagger;
 
+import com.eralp.configuration.security.apikey.ApiKeyAuthFilter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
@@ -15,25 +16,33 @@ import io.swagger.v3.oas.models.tags.Tag;
 import org.springdoc.core.customizers.OperationCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.method.HandlerMethod;
 
 import java.util.List;
 
 /**
  * This class configures swagger to work with custom headers both for security and locale.
+ * Springdoc only scans the application under the "dev" profile, the document is served statically from /openapi.json otherwise.
  *
  * @author Eralp Nitelik
  */
 @Configuration
+@Profile("dev")
 public class OpenApiConfig {
     @Bean
     public OpenAPI customizeOpenAPI() {
         final String securitySchemeName = "bearerAuth";
+        final String apiKeySchemeName = "apiKeyAuth";
         return new OpenAPI()
                 .addSecurityItem(new SecurityRequirement().addList(securitySchemeName))
+                .addSecurityItem(new SecurityRequirement().addList(apiKeySchemeName))
                 .components(new Components().addSecuritySchemes(securitySchemeName, new SecurityScheme().name(securitySchemeName)
-                        .type(SecurityScheme.Type.HTTP)
-                        .scheme("bearer").bearerFormat("JWT")))
+                                .type(SecurityScheme.Type.HTTP)
+                                .scheme("bearer").bearerFormat("JWT"))
+                        .addSecuritySchemes(apiKeySchemeName, new SecurityScheme().name(ApiKeyAuthFilter.HEADER)
+                                .type(SecurityScheme.Type.APIKEY)
+                                .in(SecurityScheme.In.HEADER)))
                 .tags(List.of(
                         new Tag()
                                 .name("Logout")
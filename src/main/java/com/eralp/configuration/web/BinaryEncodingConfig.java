@@ -0,0 +1,83 @@
+package com.eralp.configuration.web;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.List;
+
+/**
+ * This class configures binary encodings of the API for internal clients.
+ * A client that sends "Accept: application/cbor" or "Accept: application/x-jackson-smile" receives the same
+ * structure in a binary format, and request bodies are accepted in these formats with a matching "Content-Type".
+ * JSON stays the default as its converter comes first.
+ *
+ * @author Eralp Nitelik
+ */
+@Configuration
+public class BinaryEncodingConfig {
+    /**
+     * Media types of the binary encodings.
+     */
+    public static final List<MediaType> BINARY_MEDIA_TYPES = List.of(
+            MediaType.APPLICATION_CBOR,
+            MediaType.valueOf("application/x-jackson-smile")
+    );
+
+    /**
+     * Creates a CBOR converter from the application's {@link Jackson2ObjectMapperBuilder}.
+     * Dates are written as epoch milliseconds, there is no need to format them for machine clients.
+     *
+     * @param builder a new builder with the application's jackson settings
+     * @return the {@link MappingJackson2CborHttpMessageConverter}
+     * @author Eralp Nitelik
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder
+                .factory(new CBORFactory())
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build());
+    }
+
+    /**
+     * Creates a Smile converter from the application's {@link Jackson2ObjectMapperBuilder}.
+     * Dates are written as epoch milliseconds, there is no need to format them for machine clients.
+     *
+     * @param builder a new builder with the application's jackson settings
+     * @return the {@link MappingJackson2SmileHttpMessageConverter}
+     * @author Eralp Nitelik
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder
+                .factory(new SmileFactory())
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build());
+    }
+
+    /**
+     * Checks if the given "Accept" header asks for one of the binary encodings.
+     *
+     * @param acceptHeader the raw header value, might be null
+     * @return true if a binary encoding is requested
+     * @author Eralp Nitelik
+     */
+    public static boolean acceptsBinary(String acceptHeader) {
+        if (acceptHeader == null) {
+            return false;
+        }
+        for (MediaType mediaType : BINARY_MEDIA_TYPES) {
+            if (acceptHeader.contains(mediaType.getSubtype())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package com.eralp.configuration.web.timing;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.Arrays;
+
+/**
+ * This class collects the phase durations of the current request for the "Server-Timing" header.
+ * Every request thread reuses one instance with a fixed array of durations and a header buffer,
+ * so collecting the timings does not allocate. Durations are only collected between {@link #begin()} and {@link #end()}.
+ * <p>
+ * Phases may overlap, e.g. "handler" contains the phases that ran inside the controller.
+ *
+ * @author Eralp Nitelik
+ */
+public final class ServerTiming {
+    public static final String HEADER = "Server-Timing";
+
+    private static final TimingPhase[] PHASES = TimingPhase.values();
+    private static final ThreadLocal<ServerTiming> CURRENT = ThreadLocal.withInitial(ServerTiming::new);
+
+    private final long[] durations = new long[PHASES.length];
+    private final StringBuilder header = new StringBuilder(160);
+    private boolean active;
+    private boolean written;
+    private long requestStart;
+    private long handlerStart;
+
+    private ServerTiming() {
+    }
+
+    /**
+     * Starts collecting the timings of the request on the current thread.
+     *
+     * @author Eralp Nitelik
+     */
+    public static void begin() {
+        ServerTiming timing = CURRENT.get();
+        Arrays.fill(timing.durations, 0);
+        timing.active = true;
+        timing.written = false;
+        timing.requestStart = System.nanoTime();
+        timing.handlerStart = 0;
+    }
+
+    /**
+     * Stops collecting the timings on the current thread.
+     *
+     * @author Eralp Nitelik
+     */
+    public static void end() {
+        CURRENT.get().active = false;
+    }
+
+    /**
+     * Adds the duration to the phase of the current request. Ignored if no request is being timed.
+     *
+     * @param phase the phase
+     * @param nanos duration in nanoseconds
+     * @author Eralp Nitelik
+     */
+    public static void add(TimingPhase phase, long nanos) {
+        ServerTiming timing = CURRENT.get();
+        if (timing.active) {
+            timing.durations[phase.ordinal()] += nanos;
+        }
+    }
+
+    /**
+     * Marks the start of the handler phase.
+     *
+     * @author Eralp Nitelik
+     */
+    public static void startHandler() {
+        ServerTiming timing = CURRENT.get();
+        if (timing.active) {
+            timing.handlerStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Sets the "Server-Timing" header with the phases measured so far and the total time.
+     * The header is written once per request, and only if the response is not committed yet.
+     *
+     * @param response the response of the current request
+     * @author Eralp Nitelik
+     */
+    public static void writeHeader(HttpServletResponse response) {
+        ServerTiming timing = CURRENT.get();
+        if (!timing.active || timing.written || response.isCommitted()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (timing.handlerStart != 0) {
+            timing.durations[TimingPhase.HANDLER.ordinal()] = now - timing.handlerStart;
+        }
+        StringBuilder header = timing.header;
+        header.setLength(0);
+        for (TimingPhase phase : PHASES) {
+            long nanos = timing.durations[phase.ordinal()];
+            if (nanos > 0) {
+                appendMetric(header, phase.getMetricName(), nanos);
+            }
+        }
+        appendMetric(header, "total", now - timing.requestStart);
+        response.setHeader(HEADER, header.toString());
+        timing.written = true;
+    }
+
+    /**
+     * Appends "name;dur=milliseconds" with microsecond precision.
+     */
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        long micros = nanos / 1_000;
+        long fraction = micros % 1_000;
+        header.append(name).append(";dur=").append(micros / 1_000).append('.');
+        if (fraction < 100) {
+            header.append('0');
+        }
+        if (fraction < 10) {
+            header.append('0');
+        }
+        header.append(fraction);
+    }
+}
@@ -0,0 +1,55 @@
+package com.eralp.configuration.web.timing;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * This class enables the "Server-Timing" response header when "server-timing.enabled" is true.
+ * The header breaks the request time into phases such as "jwt", "token-db", "user-db", "bcrypt" and "handler",
+ * so a client can see where the time of a request went in the browser developer tools.
+ * <p>
+ * The header exposes internal timings, so it is meant for development and trusted environments.
+ *
+ * @author Eralp Nitelik
+ */
+@Configuration
+@ConditionalOnProperty(name = "server-timing.enabled", havingValue = "true")
+public class ServerTimingConfig implements WebMvcConfigurer {
+    /**
+     * Registers the {@link ServerTimingFilter} before every other filter.
+     *
+     * @return the {@link FilterRegistrationBean} of the filter
+     * @author Eralp Nitelik
+     */
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter() {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(new ServerTimingFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Marks the start of the handler phase once the request reaches the controller.
+     *
+     * @param registry the registry of the interceptors
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+                ServerTiming.startHandler();
+                return true;
+            }
+        });
+    }
+}
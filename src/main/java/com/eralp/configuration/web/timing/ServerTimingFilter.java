@@ -0,0 +1,34 @@
+package com.eralp.configuration.web.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * This filter starts and ends the {@link ServerTiming} of a request.
+ * It runs before the security filters, so token verification and lookups are timed too.
+ * Responses that are not written by a controller, e.g. logout, get the header after the chain if they are not committed.
+ *
+ * @author Eralp Nitelik
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        ServerTiming.begin();
+        try {
+            filterChain.doFilter(request, response);
+            ServerTiming.writeHeader(response);
+        } finally {
+            ServerTiming.end();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.eralp.configuration.web.timing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Phases of a request that are reported in the "Server-Timing" header, in the order they are written.
+ *
+ * @author Eralp Nitelik
+ */
+@Getter
+@AllArgsConstructor
+public enum TimingPhase {
+    JWT("jwt"),
+    TOKEN_DB("token-db"),
+    USER_DB("user-db"),
+    BCRYPT("bcrypt"),
+    TOKEN_ISSUE("token-issue"),
+    TOKEN_REVOKE("token-revoke"),
+    API_KEY("api-key"),
+    HANDLER("handler");
+
+    private final String metricName;
+}
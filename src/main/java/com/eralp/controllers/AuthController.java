@@ -1,10 +1,13 @@
 package com.eralp.controllers;
 
 import com.eralp.dto.ApiResponse;
+import com.eralp.dto.request.IntrospectionRequestDto;
 import com.eralp.dto.request.LoginRequestDto;
 import com.eralp.dto.request.RegisterRequestDto;
+import com.eralp.dto.response.IntrospectionResponseDto;
 import com.eralp.dto.response.LoginResponseDto;
 import com.eralp.services.AuthService;
+import com.eralp.services.TokenIntrospectionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +27,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
     private final ApiResponse apiResponse;
     private final AuthService authService;
+    private final TokenIntrospectionService tokenIntrospectionService;
 
     /**
      * This method handles user registration requests.
@@ -48,4 +52,16 @@ public class AuthController {
     public ResponseEntity<ApiResponse> login(@RequestBody @Valid LoginRequestDto request) {
         return apiResponse.createOkResponse(authService.login(request));
     }
+
+    /**
+     * This method handles batch token introspection requests of gateways. It requires the ADMIN role.
+     *
+     * @param request The {@link IntrospectionRequestDto} object containing the tokens
+     * @return an {@link ApiResponse} with a list of {@link IntrospectionResponseDto} in the order of the tokens inside {@link ResponseEntity}
+     * @author Eralp Nitelik
+     */
+    @PostMapping("/introspect")
+    public ResponseEntity<ApiResponse> introspect(@RequestBody @Valid IntrospectionRequestDto request) {
+        return apiResponse.createOkResponse(tokenIntrospectionService.introspect(request.getTokens()));
+    }
 }
@@ -0,0 +1,44 @@
+package com.eralp.controllers;
+
+import com.eralp.configuration.locale.LocaleSelector;
+import com.eralp.dto.ApiResponse;
+import com.eralp.dto.response.LogoutResponseDto;
+import com.eralp.exceptions.custom.AuthorizationRequiredException;
+import com.eralp.repositories.projections.UserPrincipal;
+import com.eralp.services.AuthService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * {@link SessionController} handles requests about the sessions of the authenticated user.
+ * It is kept out of "/auth", whose requests are permitted without authentication and are not authenticated at all.
+ *
+ * @author Eralp Nitelik
+ */
+@RestController
+@RequestMapping("/sessions")
+@RequiredArgsConstructor
+public class SessionController {
+    private final ApiResponse apiResponse;
+    private final AuthService authService;
+
+    /**
+     * This method logs out every session of the authenticated user.
+     *
+     * @param principal The {@link UserPrincipal} of the authenticated user
+     * @return an {@link ApiResponse} with a {@link LogoutResponseDto} object that contains the number of revoked tokens inside {@link ResponseEntity}
+     * @throws AuthorizationRequiredException if the request is not authenticated, e.g. if an authorization rule permits the path to everyone
+     * @author Eralp Nitelik
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<ApiResponse> logoutAll(@AuthenticationPrincipal UserPrincipal principal) {
+        if (principal == null) {
+            throw new AuthorizationRequiredException(LocaleSelector.withCode("exception.authentication.not_logged_in"));
+        }
+        return apiResponse.createOkResponse(authService.logoutAll(principal.id()));
+    }
+}
@@ -0,0 +1,58 @@
+package com.eralp.controllers.admin;
+
+import com.eralp.dto.ApiResponse;
+import com.eralp.dto.request.ApiKeyRequestDto;
+import com.eralp.dto.response.ApiKeyResponseDto;
+import com.eralp.services.ApiKeyService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * {@link ApiKeyController} handles administrative requests related to API keys of service accounts.
+ *
+ * @author Eralp Nitelik
+ */
+@RestController
+@RequestMapping("/admin/api-keys")
+@RequiredArgsConstructor
+public class ApiKeyController {
+    private final ApiResponse apiResponse;
+    private final ApiKeyService apiKeyService;
+
+    /**
+     * Creates an API key. The key is only returned in this response.
+     *
+     * @param request The {@link ApiKeyRequestDto} object containing the owner and the name of the key
+     * @return an {@link ApiResponse} with an {@link ApiKeyResponseDto} object that contains the key inside {@link ResponseEntity}
+     * @author Eralp Nitelik
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse> create(@RequestBody @Valid ApiKeyRequestDto request) {
+        return apiResponse.createOkResponse(apiKeyService.create(request));
+    }
+
+    /**
+     * Lists the active API keys.
+     *
+     * @return an {@link ApiResponse} with a list of {@link ApiKeyResponseDto} inside {@link ResponseEntity}
+     * @author Eralp Nitelik
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse> findAll() {
+        return apiResponse.createOkResponse(apiKeyService.findAll());
+    }
+
+    /**
+     * Revokes an API key.
+     *
+     * @param id id of the key
+     * @return an {@link ApiResponse} with true if a key was revoked inside {@link ResponseEntity}
+     * @author Eralp Nitelik
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse> revoke(@PathVariable String id) {
+        return apiResponse.createOkResponse(apiKeyService.revoke(id));
+    }
+}
@@ -0,0 +1,33 @@
+package com.eralp.controllers.admin;
+
+import com.eralp.configuration.security.authorization.AuthorizationRules;
+import com.eralp.dto.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * {@link AuthorizationRuleController} handles administrative requests related to authorization rules.
+ *
+ * @author Eralp Nitelik
+ */
+@RestController
+@RequestMapping("/admin/authorization-rules")
+@RequiredArgsConstructor
+public class AuthorizationRuleController {
+    private final ApiResponse apiResponse;
+    private final AuthorizationRules authorizationRules;
+
+    /**
+     * Reloads the authorization rules from the database without waiting for the periodic refresh.
+     *
+     * @return an {@link ApiResponse} with the number of rules in effect inside {@link ResponseEntity}
+     * @author Eralp Nitelik
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<ApiResponse> reload() {
+        return apiResponse.createOkResponse(authorizationRules.reload());
+    }
+}
@@ -0,0 +1,38 @@
+package com.eralp.controllers.admin;
+
+import com.eralp.dto.ApiResponse;
+import com.eralp.dto.request.BulkLogoutRequestDto;
+import com.eralp.dto.response.LogoutResponseDto;
+import com.eralp.services.AuthService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * {@link UserAdminController} handles administrative requests related to users.
+ *
+ * @author Eralp Nitelik
+ */
+@RestController
+@RequestMapping("/admin/users")
+@RequiredArgsConstructor
+public class UserAdminController {
+    private final ApiResponse apiResponse;
+    private final AuthService authService;
+
+    /**
+     * Logs out every session of the given users.
+     *
+     * @param request The {@link BulkLogoutRequestDto} object containing the ids of the users
+     * @return an {@link ApiResponse} with a {@link LogoutResponseDto} object that contains the number of revoked tokens inside {@link ResponseEntity}
+     * @author Eralp Nitelik
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse> logout(@RequestBody @Valid BulkLogoutRequestDto request) {
+        return apiResponse.createOkResponse(authService.logoutAll(request.getUserIds()));
+    }
+}
@@ -0,0 +1,26 @@
+package com.eralp.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A class representing the information needed to create an API key for a service account.
+ *
+ * @author Eralp Nitelik
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ApiKeyRequestDto {
+    @NotBlank(message = "{validation.user_id.blank}")
+    private String userId;
+
+    @Size(max = 100, message = "{validation.api_key.name.size}")
+    @NotBlank(message = "{validation.api_key.name.blank}")
+    private String name;
+}
@@ -0,0 +1,25 @@
+package com.eralp.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A class representing the users whose sessions are logged out by an administrator.
+ *
+ * @author Eralp Nitelik
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkLogoutRequestDto {
+    @Size(min = 1, max = 1000, message = "{validation.user_ids.size}")
+    @NotNull(message = "{validation.user_ids.null}")
+    private List<String> userIds;
+}
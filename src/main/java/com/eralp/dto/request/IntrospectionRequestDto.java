@@ -0,0 +1,25 @@
+package com.eralp.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A class representing a batch of tokens to introspect.
+ *
+ * @author Eralp Nitelik
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IntrospectionRequestDto {
+    @Size(min = 1, max = 100, message = "{validation.tokens.size}")
+    @NotNull(message = "{validation.tokens.null}")
+    private List<String> tokens;
+}
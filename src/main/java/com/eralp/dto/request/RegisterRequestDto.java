@@ -20,7 +20,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder
 public class RegisterRequestDto {
-    @Size(min = 3, message = "{validation.email.size}")
+    @Size(min = 3, max = 254, message = "{validation.email.size}")
     @Email(message = "{validation.email.valid}")
     @NotBlank(message = "{validation.email.blank}")
     @NotNull(message = "{validation.email.null}")
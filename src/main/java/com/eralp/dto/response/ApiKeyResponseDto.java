@@ -0,0 +1,28 @@
+package com.eralp.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * The class {@link ApiKeyResponseDto} is used to return an API key. The key itself is only returned once, when it is created.
+ *
+ * @author Eralp Nitelik
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ApiKeyResponseDto {
+    private String id;
+    private String name;
+    private String prefix;
+    private String userId;
+    private Date createdAt;
+    private String key;
+}
@@ -0,0 +1,37 @@
+package com.eralp.dto.response;
+
+import com.eralp.entities.enums.Role;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * The class {@link IntrospectionResponseDto} is used to return the state of one introspected token.
+ * Results are returned in the order of the requested tokens. Inactive tokens carry no other fields.
+ *
+ * @author Eralp Nitelik
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IntrospectionResponseDto {
+    private boolean active;
+    private String subject;
+    private Set<Role> roles;
+    private Date expiresAt;
+
+    /**
+     * @return the response of an inactive token
+     * @author Eralp Nitelik
+     */
+    public static IntrospectionResponseDto inactive() {
+        return IntrospectionResponseDto.builder()
+                .active(false)
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.eralp.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The class {@link LogoutResponseDto} is used to return the number of tokens that were revoked by a logout of all sessions.
+ *
+ * @author Eralp Nitelik
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LogoutResponseDto {
+    private int revokedTokens;
+}
@@ -0,0 +1,39 @@
+package com.eralp.entities;
+
+import com.eralp.configuration.history.RecordHistory;
+import com.eralp.entities.base.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * This is an entity class that represents an {@link ApiKey} of a service account in the system.
+ * The key itself is never stored. Only its prefix, which identifies the key, and its keyed digest are kept.
+ * Requests authenticated with the key act as the owning {@link User}.
+ *
+ * @author Eralp Nitelik
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Builder
+@Table(name = "api_keys")
+@RecordHistory(masked = "digest")
+public class ApiKey extends BaseEntity {
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false, unique = true, length = 16)
+    private String prefix;
+
+    /*
+        HMAC-SHA256 of the whole key as lowercase hex, see ApiKeyHasher.
+     */
+    @Column(nullable = false, length = 64)
+    private String digest;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+}
@@ -0,0 +1,45 @@
+package com.eralp.entities;
+
+import com.eralp.configuration.history.RecordHistory;
+import com.eralp.entities.base.BaseEntity;
+import com.eralp.entities.converter.RoleSetConverter;
+import com.eralp.entities.enums.Role;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Set;
+
+/**
+ * This is an entity class that represents an {@link AuthorizationRule} in the system.
+ * A rule grants access to the paths that match its pattern.
+ * Patterns consist of literal segments, "*" for exactly one segment and a trailing "**" for any remaining segments.
+ * If several rules match a path, the most specific one decides.
+ *
+ * @author Eralp Nitelik
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Builder
+@Table(name = "authorization_rules")
+@RecordHistory
+public class AuthorizationRule extends BaseEntity {
+    @Column(nullable = false, unique = true)
+    private String pattern;
+
+    /*
+        Requests are permitted without authentication. Roles are ignored.
+     */
+    @Column(name = "permit_all")
+    private boolean permitAll;
+
+    /*
+        Any of the roles grants access. An empty set only requires authentication.
+        Stored as a bitmask, see RoleMask.
+     */
+    @Convert(converter = RoleSetConverter.class)
+    @Column(nullable = false)
+    private Set<Role> roles;
+}
@@ -21,8 +21,11 @@ import lombok.*;
 @Builder
 @Table(name = "tokens")
 public class Token extends BaseEntity {
-    @Column(nullable = false)
-    private String token;
+    /*
+        SHA-256 of the token, see TokenDigest. The token itself is never stored, so a leaked table can not be replayed.
+     */
+    @Column(name = "token_digest", nullable = false, unique = true, length = 64)
+    private String tokenDigest;
 
     @Column(name = "token_type")
     @Enumerated(EnumType.STRING)
@@ -33,7 +36,7 @@ public class Token extends BaseEntity {
 
     private boolean revoked;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 }
@@ -1,18 +1,22 @@
 package com.eralp.entities;
 
+import com.eralp.configuration.cache.CacheRegions;
+import com.eralp.configuration.history.RecordHistory;
 import com.eralp.entities.base.BaseEntity;
+import com.eralp.entities.converter.RoleMask;
+import com.eralp.entities.converter.RoleSetConverter;
 import com.eralp.entities.enums.Role;
 import com.eralp.entities.enums.State;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * This is an entity class that represents a {@link User} in the system.
@@ -29,6 +33,9 @@ import java.util.stream.Collectors;
 @Entity
 @Builder
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USERS)
+@RecordHistory(masked = "password")
 public class User extends BaseEntity implements UserDetails {
 
     @Column(nullable = false, unique = true)
@@ -37,8 +44,11 @@ public class User extends BaseEntity implements UserDetails {
     @Column(nullable = false)
     private String password;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @Enumerated(EnumType.STRING)
+    /*
+        Stored as a bitmask, see RoleMask.
+     */
+    @Convert(converter = RoleSetConverter.class)
+    @Column(nullable = false)
     private Set<Role> roles;
 
     @OneToMany(mappedBy = "user")
@@ -46,7 +56,7 @@ public class User extends BaseEntity implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return roles.stream().map(role -> new SimpleGrantedAuthority("ROLE_" + role.toString())).collect(Collectors.toList());
+        return RoleMask.authorities(roles);
     }
 
     @Override
@@ -0,0 +1,100 @@
+package com.eralp.entities.converter;
+
+import com.eralp.entities.enums.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class converts between {@link Role} sets and their bitmask representation.
+ * Every possible mask is precomputed once, so role sets and authority lists are shared immutable instances.
+ *
+ * @author Eralp Nitelik
+ */
+public final class RoleMask {
+    private static final Role[] ROLES = Role.values();
+    private static final int COMBINATIONS = 1 << ROLES.length;
+
+    private static final List<Set<Role>> ROLE_SETS;
+    private static final List<List<GrantedAuthority>> AUTHORITIES;
+
+    static {
+        List<Set<Role>> roleSets = new ArrayList<>(COMBINATIONS);
+        List<List<GrantedAuthority>> authorities = new ArrayList<>(COMBINATIONS);
+        for (int mask = 0; mask < COMBINATIONS; mask++) {
+            EnumSet<Role> roles = EnumSet.noneOf(Role.class);
+            List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
+            for (Role role : ROLES) {
+                if ((mask & role.getMask()) != 0) {
+                    roles.add(role);
+                    grantedAuthorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+                }
+            }
+            roleSets.add(Collections.unmodifiableSet(roles));
+            authorities.add(List.copyOf(grantedAuthorities));
+        }
+        ROLE_SETS = List.copyOf(roleSets);
+        AUTHORITIES = List.copyOf(authorities);
+    }
+
+    private RoleMask() {
+    }
+
+    /**
+     * Converts the given roles to a bitmask.
+     *
+     * @param roles roles to convert, null is treated as no roles
+     * @return bitmask of the roles
+     * @author Eralp Nitelik
+     */
+    public static int of(Set<Role> roles) {
+        if (roles == null) {
+            return 0;
+        }
+        int mask = 0;
+        for (Role role : ROLES) {
+            if (roles.contains(role)) {
+                mask |= role.getMask();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the shared immutable role set of the given bitmask.
+     *
+     * @param mask bitmask of the roles
+     * @return an immutable {@link Set} of {@link Role}
+     * @author Eralp Nitelik
+     */
+    public static Set<Role> toRoles(int mask) {
+        return ROLE_SETS.get(mask & (COMBINATIONS - 1));
+    }
+
+    /**
+     * Returns the shared immutable authority list of the given bitmask. Authorities are prefixed with "ROLE_".
+     *
+     * @param mask bitmask of the roles
+     * @return an immutable {@link List} of {@link GrantedAuthority}
+     * @author Eralp Nitelik
+     */
+    public static List<GrantedAuthority> authorities(int mask) {
+        return AUTHORITIES.get(mask & (COMBINATIONS - 1));
+    }
+
+    /**
+     * Returns the shared immutable authority list of the given roles.
+     *
+     * @param roles roles of the user
+     * @return an immutable {@link List} of {@link GrantedAuthority}
+     * @author Eralp Nitelik
+     */
+    public static List<GrantedAuthority> authorities(Set<Role> roles) {
+        return authorities(of(roles));
+    }
+}
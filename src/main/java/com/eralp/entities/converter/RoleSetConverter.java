@@ -0,0 +1,30 @@
+package com.eralp.entities.converter;
+
+import com.eralp.entities.enums.Role;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * This converter stores a {@link Set} of {@link Role} as a single integer bitmask column.
+ * It removes the need for a join table and a join on every user load.
+ * Every entity gets its own mutable copy, since the shared sets of {@link RoleMask} are immutable.
+ *
+ * @author Eralp Nitelik
+ */
+@Converter
+public class RoleSetConverter implements AttributeConverter<Set<Role>, Integer> {
+    @Override
+    public Integer convertToDatabaseColumn(Set<Role> roles) {
+        return RoleMask.of(roles);
+    }
+
+    @Override
+    public Set<Role> convertToEntityAttribute(Integer mask) {
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        roles.addAll(RoleMask.toRoles(mask == null ? 0 : mask));
+        return roles;
+    }
+}
@@ -1,8 +1,20 @@
 package com.eralp.entities.enums;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
 /**
+ * Roles are stored as a bitmask, each role owns a single bit of the mask.
+ * Bits must stay unique and contiguous starting from 1, do not reorder existing values as masks are persisted.
+ *
  * @author Eralp Nitelik
  */
+@Getter
+@AllArgsConstructor
 public enum Role {
-    ADMIN, MANAGER, USER
+    ADMIN(1),
+    MANAGER(1 << 1),
+    USER(1 << 2);
+
+    private final int mask;
 }
@@ -4,5 +4,12 @@ package com.eralp.entities.enums;
  * @author Eralp Nitelik
  */
 public enum TokenType {
-    BEARER
+    /**
+     * A signed JWT.
+     */
+    BEARER,
+    /**
+     * An opaque reference token, see {@link com.eralp.configuration.security.opaque.OpaqueTokenStore}.
+     */
+    OPAQUE
 }
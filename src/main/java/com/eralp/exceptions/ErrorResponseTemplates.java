@@ -0,0 +1,138 @@
+package com.eralp.exceptions;
+
+import com.eralp.configuration.locale.LocaleConfig;
+import com.eralp.dto.ApiResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class pre-renders the JSON body of an error {@link ApiResponse} for every {@link ExceptionType} and supported locale.
+ * Templates are rendered once at startup with the application's {@link ObjectMapper}, so they match the regular output.
+ * Only the error message and the timestamp are serialized when an error is written.
+ *
+ * @author Eralp Nitelik
+ */
+@Component
+public class ErrorResponseTemplates {
+    private static final String MESSAGE_MARKER = "__error_message__";
+    private static final String TIMESTAMP_MARKER = "__timestamp__";
+
+    private final ObjectMapper objectMapper;
+    private final Map<Locale, Map<ExceptionType, Template>> templates;
+
+    public ErrorResponseTemplates(ObjectMapper objectMapper, ResourceBundleMessageSource messageSource) {
+        this.objectMapper = objectMapper;
+        Map<Locale, Map<ExceptionType, Template>> byLocale = new HashMap<>();
+        for (Locale locale : LocaleConfig.supportedLocales()) {
+            Map<ExceptionType, Template> byType = new EnumMap<>(ExceptionType.class);
+            for (ExceptionType exceptionType : ExceptionType.values()) {
+                byType.put(exceptionType, createTemplate(exceptionType, messageSource.getMessage(exceptionType.getLocaleMessageCode(), null, locale)));
+            }
+            byLocale.put(locale, byType);
+        }
+        this.templates = Map.copyOf(byLocale);
+    }
+
+    /**
+     * Renders the JSON body of an error response.
+     *
+     * @param exceptionType the predefined exception
+     * @param locale        the locale of the request
+     * @param errorMessage  the message of the exception, might be null
+     * @return the serialized {@link ApiResponse}, or null if the locale is not supported
+     * @author Eralp Nitelik
+     */
+    public byte[] render(ExceptionType exceptionType, Locale locale, String errorMessage) {
+        Map<ExceptionType, Template> byType = templates.get(locale);
+        if (byType == null) {
+            return null;
+        }
+        return byType.get(exceptionType).render(serialize(errorMessage), serialize(new Date()));
+    }
+
+    /**
+     * Serializes an error response whose dynamic fields are replaced with markers, and splits it around the markers.
+     *
+     * @param exceptionType  the predefined exception
+     * @param defaultMessage the localized message of the exception
+     * @return the {@link Template} of the exception
+     * @author Eralp Nitelik
+     */
+    private Template createTemplate(ExceptionType exceptionType, String defaultMessage) {
+        ApiResponse response = ApiResponse.builder()
+                .error(ExceptionData.builder()
+                        .exceptionCode(exceptionType.getCode())
+                        .defaultMessage(defaultMessage)
+                        .errorMessage(MESSAGE_MARKER)
+                        .build())
+                .status(exceptionType.getHttpStatus().value())
+                .isSuccessful(false)
+                .build();
+        ObjectNode tree = objectMapper.valueToTree(response);
+        tree.put("timestamp", TIMESTAMP_MARKER);
+        String json = new String(serialize(tree), StandardCharsets.UTF_8);
+        String message = new String(serialize(MESSAGE_MARKER), StandardCharsets.UTF_8);
+        String timestamp = new String(serialize(TIMESTAMP_MARKER), StandardCharsets.UTF_8);
+        int messageIndex = json.indexOf(message);
+        int timestampIndex = json.indexOf(timestamp);
+        if (messageIndex < 0 || timestampIndex < 0) {
+            throw new IllegalStateException("Error response template could not be created for " + exceptionType);
+        }
+        boolean messageFirst = messageIndex < timestampIndex;
+        int firstIndex = Math.min(messageIndex, timestampIndex);
+        int firstEnd = firstIndex + (messageFirst ? message : timestamp).length();
+        int secondIndex = Math.max(messageIndex, timestampIndex);
+        int secondEnd = secondIndex + (messageFirst ? timestamp : message).length();
+        return new Template(
+                json.substring(0, firstIndex).getBytes(StandardCharsets.UTF_8),
+                json.substring(firstEnd, secondIndex).getBytes(StandardCharsets.UTF_8),
+                json.substring(secondEnd).getBytes(StandardCharsets.UTF_8),
+                messageFirst
+        );
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Static parts of a serialized error response. The dynamic values are written between them.
+     *
+     * @param head         bytes before the first dynamic value
+     * @param middle       bytes between the dynamic values
+     * @param tail         bytes after the second dynamic value
+     * @param messageFirst true if the error message comes before the timestamp
+     */
+    private record Template(byte[] head, byte[] middle, byte[] tail, boolean messageFirst) {
+        byte[] render(byte[] message, byte[] timestamp) {
+            byte[] first = messageFirst ? message : timestamp;
+            byte[] second = messageFirst ? timestamp : message;
+            byte[] body = new byte[head.length + first.length + middle.length + second.length + tail.length];
+            int position = copy(head, body, 0);
+            position = copy(first, body, position);
+            position = copy(middle, body, position);
+            position = copy(second, body, position);
+            copy(tail, body, position);
+            return body;
+        }
+
+        private static int copy(byte[] source, byte[] target, int position) {
+            System.arraycopy(source, 0, target, position, source.length);
+            return position + source.length;
+        }
+    }
+}
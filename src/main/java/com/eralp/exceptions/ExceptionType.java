@@ -27,6 +27,7 @@ public enum ExceptionType {
      */
     INTERNAL_ERROR(9001, "exception.general.internal_server", INTERNAL_SERVER_ERROR),
     BAD_REQUEST_ERROR(9002, "exception.general.bad_request", BAD_REQUEST),
+    SERVICE_UNAVAILABLE(9003, "exception.general.service_unavailable", HttpStatus.SERVICE_UNAVAILABLE),
 
     /*
         Validation errors.
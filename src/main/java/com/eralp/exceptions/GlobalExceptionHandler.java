@@ -1,11 +1,16 @@
 package com.eralp.exceptions;
 
 import com.eralp.configuration.locale.LocaleSelector;
+import com.eralp.configuration.web.BinaryEncodingConfig;
 import com.eralp.dto.ApiResponse;
+import com.eralp.exceptions.custom.ServiceUnavailableException;
 import com.eralp.exceptions.custom.UserAlreadyExistsException;
 import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
@@ -18,6 +23,8 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.stream.Collectors;
 
@@ -26,6 +33,7 @@ import static com.eralp.exceptions.ExceptionType.*;
 /**
  * This class is a global exception handler. It is responsible for handling exceptions thrown by the application's REST controllers.
  * Each exception handler method returns an {@link ApiResponse} containing an {@link ExceptionData} object inside of {@link ResponseEntity}.
+ * Expected failures are logged through {@link SampledFailureLogger}, unexpected errors are logged with their stack trace.
  *
  * @author Eralp Nitelik
  */
@@ -34,60 +42,69 @@ import static com.eralp.exceptions.ExceptionType.*;
 @RequiredArgsConstructor
 public class GlobalExceptionHandler {
     private final ApiResponse apiResponse;
+    private final ErrorResponseTemplates errorResponseTemplates;
+    private final SampledFailureLogger failureLogger;
 
     @ResponseBody
     @ExceptionHandler(Exception.class)
-    public final ResponseEntity<ApiResponse> handleAllExceptions(Exception exception) {
+    public final ResponseEntity<?> handleAllExceptions(Exception exception) {
         log.error("Unhandled error occurred!", exception);
         return createExceptionResponse(UNEXPECTED_ERROR, exception.getMessage());
     }
 
     @ResponseBody
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<ApiResponse> handleRuntimeException(RuntimeException exception) {
+    public ResponseEntity<?> handleRuntimeException(RuntimeException exception) {
         log.error("Unhandled runtime error occurred!", exception);
         return createExceptionResponse(UNEXPECTED_ERROR, exception.getMessage());
     }
 
     @ResponseBody
     @ExceptionHandler(HttpMessageNotReadableException.class)
-    public ResponseEntity<ApiResponse> handleHttpMessageNotReadableException(HttpMessageNotReadableException exception) {
-        log.warn("Invalid json. {}", exception.getMessage());
+    public ResponseEntity<?> handleHttpMessageNotReadableException(HttpMessageNotReadableException exception) {
+        failureLogger.log(BAD_REQUEST_ERROR, exception.getMessage());
         return createExceptionResponse(BAD_REQUEST_ERROR, exception.getMessage());
     }
 
     @ResponseBody
     @ExceptionHandler(UsernameNotFoundException.class)
-    public ResponseEntity<ApiResponse> handleRuntimeException(UsernameNotFoundException exception) {
-        log.warn("User does not exist or deleted. {}", exception.getMessage());
+    public ResponseEntity<?> handleRuntimeException(UsernameNotFoundException exception) {
+        failureLogger.log(LOGIN_ERROR_USERNAME_DOES_NOT_EXIST, exception.getMessage());
         return createExceptionResponse(LOGIN_ERROR_USERNAME_DOES_NOT_EXIST, exception.getMessage());
     }
 
     @ResponseBody
     @ExceptionHandler(BadCredentialsException.class)
-    public ResponseEntity<ApiResponse> handleBadCredentialsException(BadCredentialsException exception) {
-        log.warn("Authentication information does not match. {}", exception.getMessage());
+    public ResponseEntity<?> handleBadCredentialsException(BadCredentialsException exception) {
+        failureLogger.log(LOGIN_ERROR_WRONG_PASSWORD, exception.getMessage());
         return createExceptionResponse(LOGIN_ERROR_WRONG_PASSWORD, exception.getMessage());
     }
 
     @ResponseBody
     @ExceptionHandler(UserAlreadyExistsException.class)
-    public ResponseEntity<ApiResponse> handleUserAlreadyExistsException(UserAlreadyExistsException exception) {
-        log.warn("Unique key already exists on database. {}", exception.getMessage());
+    public ResponseEntity<?> handleUserAlreadyExistsException(UserAlreadyExistsException exception) {
+        failureLogger.log(REGISTER_ERROR_DATA_EXISTS, exception.getMessage());
         return createExceptionResponse(REGISTER_ERROR_DATA_EXISTS, exception.getMessage());
     }
 
+    @ResponseBody
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<?> handleServiceUnavailableException(ServiceUnavailableException exception) {
+        failureLogger.log(SERVICE_UNAVAILABLE, exception.getMessage());
+        return createExceptionResponse(SERVICE_UNAVAILABLE, exception.getMessage());
+    }
+
     // validation exception
     @ResponseBody
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<ApiResponse> handleMethodArgumentNotValidException(MethodArgumentNotValidException exception) {
+    public ResponseEntity<?> handleMethodArgumentNotValidException(MethodArgumentNotValidException exception) {
         String validationErrors = exception
                 .getBindingResult()
                 .getAllErrors()
                 .stream()
                 .map(ObjectError::getDefaultMessage)
                 .collect(Collectors.joining(", "));
-        log.warn("Incoming data validation failed. {}", validationErrors + " *** " + exception.getMessage());
+        failureLogger.log(DATA_NOT_VALID, validationErrors);
         return createExceptionResponse(DATA_NOT_VALID, validationErrors);
     }
 
@@ -98,48 +115,69 @@ public class GlobalExceptionHandler {
      */
     @ResponseBody
     @ExceptionHandler(AuthenticationException.class)
-    public ResponseEntity<ApiResponse> handleAllAuthenticationException(AuthenticationException exception) {
+    public ResponseEntity<?> handleAllAuthenticationException(AuthenticationException exception) {
         log.error("Insufficient privileges to access this resource.", exception);
         return createExceptionResponse(UNEXPECTED_AUTHENTICATION_ERROR, exception.getMessage());
     }
 
     @ResponseBody
     @ExceptionHandler(InsufficientAuthenticationException.class)
-    public ResponseEntity<ApiResponse> handleInsufficientAuthenticationException(InsufficientAuthenticationException exception) {
-        log.warn("Insufficient privileges to access this resource. {}", exception.getMessage());
+    public ResponseEntity<?> handleInsufficientAuthenticationException(InsufficientAuthenticationException exception) {
+        failureLogger.log(ACCESS_PRIVILEGE_INSUFFICIENT, exception.getMessage());
         return createExceptionResponse(ACCESS_PRIVILEGE_INSUFFICIENT, exception.getMessage());
     }
 
     @ResponseBody
     @ExceptionHandler(AccessDeniedException.class)
-    public ResponseEntity<ApiResponse> handleAccessDeniedException(AccessDeniedException exception) {
-        log.warn("Authorization is required to access this resource. {}", exception.getMessage());
+    public ResponseEntity<?> handleAccessDeniedException(AccessDeniedException exception) {
+        failureLogger.log(AUTHORIZATION_REQUIRED, exception.getMessage());
         return createExceptionResponse(AUTHORIZATION_REQUIRED, exception.getMessage());
     }
 
     // Jwt related exceptions are handled thanks to FilterChainExceptionHandler
     @ResponseBody
     @ExceptionHandler(JwtException.class)
-    public ResponseEntity<ApiResponse> handleMalformedJwtException(JwtException exception) {
-        log.warn("Invalid token.", exception);
+    public ResponseEntity<?> handleMalformedJwtException(JwtException exception) {
+        failureLogger.log(INVALID_TOKEN_DETECTED, exception.getMessage());
         return createExceptionResponse(INVALID_TOKEN_DETECTED, exception.getMessage());
     }
 
     /**
      * This method helps cast predefined {@link ExceptionType}'s to {@link ExceptionData} so they can be sent to client inside of {@link ApiResponse}.
+     * The body is written from {@link ErrorResponseTemplates} when the locale is supported and the client accepts JSON,
+     * otherwise it is built and serialized as usual.
      *
      * @param exceptionType the predefined exception
      * @return A new {@link ApiResponse} with {@link ExceptionData} as its error field
      */
-    private ResponseEntity<ApiResponse> createExceptionResponse(ExceptionType exceptionType, String exceptionMessage) {
+    private ResponseEntity<?> createExceptionResponse(ExceptionType exceptionType, String exceptionMessage) {
+        byte[] body = acceptsBinary()
+                ? null
+                : errorResponseTemplates.render(exceptionType, LocaleContextHolder.getLocale(), exceptionMessage);
+        if (body != null) {
+            return ResponseEntity
+                    .status(exceptionType.getHttpStatus())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
+        }
         return apiResponse
                 .createErrorResponse(
                         exceptionType,
                         ExceptionData.builder()
                                 .exceptionCode(exceptionType.getCode())
-                                .defaultMessage(LocaleSelector.withCode(exceptionType.getLocaleMessageCode()))
+                                .defaultMessage(LocaleSelector.withType(exceptionType))
                                 .errorMessage(exceptionMessage)
                                 .build()
                 );
     }
+
+    /**
+     * Checks if the current request asks for a binary encoding, templates are only rendered as JSON.
+     *
+     * @return true if the client accepts a binary encoding
+     */
+    private static boolean acceptsBinary() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && BinaryEncodingConfig.acceptsBinary(attributes.getRequest().getHeader(HttpHeaders.ACCEPT));
+    }
 }
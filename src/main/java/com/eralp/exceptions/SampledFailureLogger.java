@@ -0,0 +1,98 @@
+package com.eralp.exceptions;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class logs expected failures such as bad credentials or invalid tokens without flooding the logs.
+ * Every failure is counted, but at most one line is logged per {@link ExceptionType} in each sample interval.
+ * The logged line contains the number of failures since the previous line and the last message, never a stack trace.
+ *
+ * @author Eralp Nitelik
+ */
+@Slf4j
+@Component
+public class SampledFailureLogger {
+    private final long intervalNanos;
+    private final Map<ExceptionType, Sample> samples = new EnumMap<>(ExceptionType.class);
+
+    public SampledFailureLogger(@Value("${logging.failures.sample-interval:PT10S}") Duration interval) {
+        this.intervalNanos = interval.toNanos();
+        long now = System.nanoTime();
+        for (ExceptionType exceptionType : ExceptionType.values()) {
+            samples.put(exceptionType, new Sample(now));
+        }
+    }
+
+    /**
+     * Counts the failure and logs it if nothing was logged for its type in the current interval.
+     *
+     * @param exceptionType the type of the failure
+     * @param message       the message of the failure
+     * @author Eralp Nitelik
+     */
+    public void log(ExceptionType exceptionType, String message) {
+        Sample sample = samples.get(exceptionType);
+        sample.total.increment();
+        sample.pending.increment();
+        sample.lastMessage = message;
+        long now = System.nanoTime();
+        long nextLogAt = sample.nextLogAt.get();
+        if (now - nextLogAt >= 0 && sample.nextLogAt.compareAndSet(nextLogAt, now + intervalNanos)) {
+            report(exceptionType, sample);
+        }
+    }
+
+    /**
+     * Reports the failures that were counted but not logged yet, so counts are not lost once the traffic stops.
+     *
+     * @author Eralp Nitelik
+     */
+    @Scheduled(fixedDelayString = "${logging.failures.sample-interval:PT10S}")
+    public void flush() {
+        samples.forEach((exceptionType, sample) -> {
+            if (sample.pending.sum() > 0) {
+                sample.nextLogAt.set(System.nanoTime() + intervalNanos);
+                report(exceptionType, sample);
+            }
+        });
+    }
+
+    /**
+     * Returns the total number of failures of a type since startup.
+     *
+     * @param exceptionType the type of the failure
+     * @return total number of failures
+     * @author Eralp Nitelik
+     */
+    public long count(ExceptionType exceptionType) {
+        return samples.get(exceptionType).total.sum();
+    }
+
+    private static void report(ExceptionType exceptionType, Sample sample) {
+        long count = sample.pending.sumThenReset();
+        if (count > 0) {
+            log.warn("{} occurred {} time(s) since last report, {} in total. Last message: {}",
+                    exceptionType, count, sample.total.sum(), sample.lastMessage);
+        }
+    }
+
+    private static final class Sample {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder pending = new LongAdder();
+        private final AtomicLong nextLogAt;
+        private volatile String lastMessage;
+
+        private Sample(long nextLogAt) {
+            this.nextLogAt = new AtomicLong(nextLogAt);
+        }
+    }
+}
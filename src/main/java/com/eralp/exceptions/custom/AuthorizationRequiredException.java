@@ -0,0 +1,20 @@
+package com.eralp.exceptions.custom;
+
+import org.springframework.security.access.AccessDeniedException;
+
+/**
+ * Thrown when a request without authorization tries to access a protected resource.
+ * This is an expected failure, so the exception does not capture a stack trace and can be preallocated.
+ *
+ * @author Eralp Nitelik
+ */
+public class AuthorizationRequiredException extends AccessDeniedException {
+    public AuthorizationRequiredException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
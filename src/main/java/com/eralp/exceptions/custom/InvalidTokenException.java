@@ -0,0 +1,29 @@
+package com.eralp.exceptions.custom;
+
+import io.jsonwebtoken.JwtException;
+import lombok.Getter;
+
+/**
+ * Thrown when a JWT token can not be parsed or verified. It replaces the exceptions of the jwt library,
+ * so an expected failure does not carry a stack trace or a cause while being handled and logged.
+ *
+ * @author Eralp Nitelik
+ */
+@Getter
+public class InvalidTokenException extends JwtException {
+    private final Reason reason;
+
+    public InvalidTokenException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    public enum Reason {
+        EXPIRED, BAD_SIGNATURE, MALFORMED
+    }
+}
@@ -0,0 +1,20 @@
+package com.eralp.exceptions.custom;
+
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+
+/**
+ * Thrown when an authenticated request does not have the privileges to access a resource.
+ * This is an expected failure, so the exception does not capture a stack trace and can be preallocated.
+ *
+ * @author Eralp Nitelik
+ */
+public class PrivilegeInsufficientException extends InsufficientAuthenticationException {
+    public PrivilegeInsufficientException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,18 @@
+package com.eralp.exceptions.custom;
+
+/**
+ * Thrown when a request needs the database while it is considered unavailable.
+ * It is expected while the database is down, so it does not carry a stack trace.
+ *
+ * @author Eralp Nitelik
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
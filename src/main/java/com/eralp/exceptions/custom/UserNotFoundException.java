@@ -0,0 +1,20 @@
+package com.eralp.exceptions.custom;
+
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+/**
+ * Thrown when a user does not exist or is deleted.
+ * This is an expected failure, so the exception does not capture a stack trace and can be preallocated.
+ *
+ * @author Eralp Nitelik
+ */
+public class UserNotFoundException extends UsernameNotFoundException {
+    public UserNotFoundException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
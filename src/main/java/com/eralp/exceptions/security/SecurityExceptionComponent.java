@@ -1,23 +1,33 @@
 package com.eralp.exceptions.security;
 
+import com.eralp.configuration.locale.LocaleConfig;
 import com.eralp.configuration.locale.LocaleSelector;
+import com.eralp.exceptions.custom.AuthorizationRequiredException;
+import com.eralp.exceptions.custom.PrivilegeInsufficientException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
 
 /**
  * This class implements {@link AuthenticationEntryPoint} and {@link AccessDeniedHandler}
  * to handle authentication and authorization exceptions respectively.
  * This class uses {@link HandlerExceptionResolver} to resolve exceptions.
  * This allows global exception handler to catch security related exceptions.
+ * Rejections are expected failures, so a stackless exception is allocated once per locale and reused.
  *
  * @author Eralp Nitelik
  */
@@ -25,19 +35,55 @@ import org.springframework.web.servlet.HandlerExceptionResolver;
 @RequiredArgsConstructor
 public class SecurityExceptionComponent implements AuthenticationEntryPoint, AccessDeniedHandler {
 
+    private static final Set<Locale> SUPPORTED_LOCALES = Set.copyOf(LocaleConfig.supportedLocales());
+
     private final HandlerExceptionResolver handlerExceptionResolver;
 
+    private final Map<Locale, PrivilegeInsufficientException> privilegeInsufficient = new ConcurrentHashMap<>();
+    private final Map<Locale, AuthorizationRequiredException> authorizationRequired = new ConcurrentHashMap<>();
+
     public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException) {
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            handlerExceptionResolver.resolveException(request, response, null, new InsufficientAuthenticationException(LocaleSelector.withCode("exception.authentication.privilege_insufficient")));
+            handlerExceptionResolver.resolveException(request, response, null, privilegeInsufficient());
             return;
         }
-        handlerExceptionResolver.resolveException(request, response, null, new AccessDeniedException(LocaleSelector.withCode("exception.authentication.not_logged_in")));
+        handlerExceptionResolver.resolveException(request, response, null, authorizationRequired());
     }
 
     @Override
     public void handle(HttpServletRequest request, HttpServletResponse response, AccessDeniedException accessDeniedException) {
-        handlerExceptionResolver.resolveException(request, response, null, new AccessDeniedException(LocaleSelector.withCode("exception.authentication.not_logged_in")));
+        handlerExceptionResolver.resolveException(request, response, null, authorizationRequired());
+    }
+
+    private PrivilegeInsufficientException privilegeInsufficient() {
+        return preallocated(privilegeInsufficient, locale ->
+                new PrivilegeInsufficientException(LocaleSelector.withCode("exception.authentication.privilege_insufficient", locale)));
+    }
+
+    private AuthorizationRequiredException authorizationRequired() {
+        return preallocated(authorizationRequired, locale ->
+                new AuthorizationRequiredException(LocaleSelector.withCode("exception.authentication.not_logged_in", locale)));
+    }
+
+    /**
+     * Returns the exception of the current locale from the cache, or creates it.
+     * Only supported locales are cached, so arbitrary request locales can not grow the cache.
+     *
+     * @param cache   exceptions by locale
+     * @param factory creates the exception for a locale
+     * @return the exception for the current locale
+     * @author Eralp Nitelik
+     */
+    private static <T extends RuntimeException> T preallocated(Map<Locale, T> cache, Function<Locale, T> factory) {
+        Locale locale = LocaleContextHolder.getLocale();
+        T exception = cache.get(locale);
+        if (exception == null) {
+            exception = factory.apply(locale);
+            if (SUPPORTED_LOCALES.contains(locale)) {
+                cache.putIfAbsent(locale, exception);
+            }
+        }
+        return exception;
     }
 }
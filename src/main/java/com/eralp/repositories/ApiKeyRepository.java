@@ -0,0 +1,23 @@
+package com.eralp.repositories;
+
+import com.eralp.entities.ApiKey;
+import com.eralp.repositories.base.BaseRepository;
+import com.eralp.repositories.projections.ApiKeyCredential;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+/**
+ * This is a repository interface for {@link ApiKey} entity.
+ *
+ * @author Eralp Nitelik
+ */
+public interface ApiKeyRepository extends BaseRepository<ApiKey, String> {
+    @Query("SELECT new com.eralp.repositories.projections.ApiKeyCredential(k.prefix, k.digest, u.id, u.email, u.roles) " +
+            "FROM ApiKey k JOIN k.user u WHERE k.state = 'ACTIVE' AND u.state = 'ACTIVE'")
+    List<ApiKeyCredential> findAllUsableCredentials();
+
+    @Query("SELECT new com.eralp.repositories.projections.ApiKeyCredential(k.prefix, k.digest, u.id, u.email, u.roles) " +
+            "FROM ApiKey k JOIN k.user u WHERE k.state = 'ACTIVE' AND u.state = 'ACTIVE' AND u.id = ?1")
+    List<ApiKeyCredential> findUsableCredentialsByUserId(String userId);
+}
@@ -0,0 +1,25 @@
+package com.eralp.repositories;
+
+import com.eralp.entities.AuthorizationRule;
+import com.eralp.repositories.base.BaseRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Set;
+
+/**
+ * This is a repository interface for {@link AuthorizationRule} entity.
+ * {@link Repository} annotation is used to indicate that this interface is a repository bean.
+ *
+ * @author Eralp Nitelik
+ */
+public interface AuthorizationRuleRepository extends BaseRepository<AuthorizationRule, String> {
+    /**
+     * Returns the patterns of every rule, including the deleted ones.
+     *
+     * @return {@link Set} of patterns
+     * @author Eralp Nitelik
+     */
+    @Query("SELECT r.pattern FROM AuthorizationRule r")
+    Set<String> findAllPatterns();
+}
@@ -2,9 +2,16 @@ package com.eralp.repositories;
 
 import com.eralp.entities.Token;
 import com.eralp.repositories.base.BaseRepository;
+import com.eralp.repositories.projections.TokenIntrospection;
+import com.eralp.repositories.projections.TokenSession;
+import com.eralp.repositories.projections.TokenStatus;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,8 +22,70 @@ import java.util.Optional;
  * @author Eralp Nitelik
  */
 public interface TokenRepository extends BaseRepository<Token, String> {
-    @Query("SELECT t FROM Token t WHERE t.user.id = ?1 AND (t.loggedOut = false AND t.revoked = false)")
-    List<Token> findAllValidTokensByUser(String userId);
+    @Query("SELECT new com.eralp.repositories.projections.TokenStatus(t.loggedOut, t.revoked) FROM Token t WHERE t.tokenDigest = ?1")
+    Optional<TokenStatus> findStatusByDigest(String tokenDigest);
 
-    Optional<Token> findByToken(String token);
+    @Query("SELECT new com.eralp.repositories.projections.TokenIntrospection(t.tokenDigest, t.loggedOut, t.revoked, u.email, u.roles, u.state) " +
+            "FROM Token t JOIN t.user u WHERE t.state = 'ACTIVE' AND t.tokenDigest IN ?1")
+    List<TokenIntrospection> findIntrospectionsByDigestIn(Collection<String> tokenDigests);
+
+    @Query("SELECT new com.eralp.repositories.projections.TokenSession(t.tokenDigest, u.id, u.email, u.roles, t.createdAt) " +
+            "FROM Token t JOIN t.user u WHERE t.tokenDigest = ?1 AND t.tokenType = 'OPAQUE' " +
+            "AND t.loggedOut = false AND t.revoked = false AND t.state = 'ACTIVE' AND u.state = 'ACTIVE'")
+    Optional<TokenSession> findSessionByDigest(String tokenDigest);
+
+    @Query("SELECT new com.eralp.repositories.projections.TokenSession(t.tokenDigest, u.id, u.email, u.roles, t.createdAt) " +
+            "FROM Token t JOIN t.user u WHERE t.tokenDigest IN ?1 AND t.tokenType = 'OPAQUE' " +
+            "AND t.loggedOut = false AND t.revoked = false AND t.state = 'ACTIVE' AND u.state = 'ACTIVE'")
+    List<TokenSession> findSessionsByDigestIn(Collection<String> tokenDigests);
+
+    /**
+     * Finds the digests of tokens that were logged out or revoked recently.
+     *
+     * @param updatedSince only tokens updated at or after this date are returned
+     * @param createdSince only tokens created at or after this date are returned, older tokens are expired anyway
+     * @return {@link List} of token digests
+     * @author Eralp Nitelik
+     */
+    @Query("SELECT t.tokenDigest FROM Token t WHERE (t.loggedOut = true OR t.revoked = true) " +
+            "AND t.updatedAt >= ?1 AND t.createdAt >= ?2 AND t.tokenDigest IS NOT NULL")
+    List<String> findInvalidatedDigestsSince(Date updatedSince, Date createdSince);
+
+    /**
+     * Logs out the token with the given digest, if it is not logged out yet.
+     *
+     * @param tokenDigest digest of the token, see {@link com.eralp.configuration.security.jwt.TokenDigest}
+     * @return {@link Integer} number of modified entries, 0 if the token is unknown or already logged out
+     * @author Eralp Nitelik
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Token t SET t.loggedOut = true, t.updatedAt = CURRENT_TIMESTAMP WHERE t.tokenDigest = ?1 AND t.loggedOut = false")
+    int logoutByDigest(String tokenDigest);
+
+    /**
+     * Revokes every token of the user that is neither logged out nor revoked.
+     *
+     * @param userId id of the user
+     * @return {@link Integer} number of modified entries
+     * @author Eralp Nitelik
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Token t SET t.revoked = true, t.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE t.user.id = ?1 AND t.loggedOut = false AND t.revoked = false")
+    int revokeAllValidTokensByUser(String userId);
+
+    /**
+     * Revokes every token of the users that is neither logged out nor revoked.
+     *
+     * @param userIds ids of the users
+     * @return {@link Integer} number of modified entries
+     * @author Eralp Nitelik
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Token t SET t.revoked = true, t.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE t.user.id IN ?1 AND t.loggedOut = false AND t.revoked = false")
+    int revokeAllValidTokensByUserIn(Collection<String> userIds);
 }
@@ -1,8 +1,13 @@
 package com.eralp.repositories;
 
+import com.eralp.configuration.cache.CacheRegions;
 import com.eralp.entities.User;
 import com.eralp.repositories.base.BaseRepository;
+import com.eralp.repositories.projections.UserPrincipal;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -16,5 +21,16 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends BaseRepository<User, String> {
     @Query("SELECT u FROM User u WHERE u.state = 'ACTIVE' AND u.email = ?1")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.USER_QUERIES)
+    })
     Optional<User> findActiveUserByEmail(String email);
+
+    @Query("SELECT new com.eralp.repositories.projections.UserPrincipal(u.id, u.email, u.roles) FROM User u WHERE u.state = 'ACTIVE' AND u.email = ?1")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.USER_QUERIES)
+    })
+    Optional<UserPrincipal> findActivePrincipalByEmail(String email);
 }
@@ -0,0 +1,70 @@
+package com.eralp.repositories.base;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * This enum lists the tables whose soft deleted rows are moved to archive tables, together with their archived columns.
+ * Archive tables are named "{table}_archive" and have these columns followed by an "archived_at" column.
+ * Columns are always listed by name, so the hot table and its archive may differ in column order or in columns that
+ * are not archived. A column that is added to a hot table must be added here and to the archive table in schema.sql.
+ *
+ * @author Eralp Nitelik
+ */
+public enum ArchiveTable {
+    USERS("users", "email", "password", "roles"),
+    TOKENS("tokens", "token_digest", "token_type", "logged_out", "revoked", "user_id"),
+    API_KEYS("api_keys", "name", "prefix", "digest", "user_id");
+
+    private final String table;
+    private final List<String> columns;
+
+    ArchiveTable(String table, String... columns) {
+        this.table = table;
+        this.columns = Stream.concat(
+                Stream.of("id", "created_at", "updated_at", "created_by", "updated_by", "state"),
+                Arrays.stream(columns)
+        ).toList();
+    }
+
+    /**
+     * Finds the archive of the given hot table.
+     *
+     * @param table name of the hot table
+     * @return an {@link Optional} of the archive, empty if rows of the table are never archived
+     * @author Eralp Nitelik
+     */
+    public static Optional<ArchiveTable> of(String table) {
+        return Arrays.stream(values()).filter(archive -> archive.table.equals(table)).findFirst();
+    }
+
+    /**
+     * @return name of the hot table
+     */
+    public String table() {
+        return table;
+    }
+
+    /**
+     * @return name of the archive table
+     */
+    public String archive() {
+        return table + "_archive";
+    }
+
+    /**
+     * @return archived columns, in the same order in every statement
+     */
+    public List<String> columns() {
+        return columns;
+    }
+
+    /**
+     * @return archived columns as a comma separated list to be used in sql
+     */
+    public String columnList() {
+        return String.join(", ", columns);
+    }
+}
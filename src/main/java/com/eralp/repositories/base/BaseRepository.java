@@ -42,21 +42,26 @@ public interface BaseRepository<T extends BaseEntity, Id> extends JpaRepository<
         Find Methods For Deleted Entities
      */
 
-    @Query("SELECT t FROM #{#entityName} t WHERE t.state = 'DELETED' AND t.id = ?1")
+    /*
+        Deleted entities are eventually moved to archive tables, so these methods are implemented
+        in BaseRepositoryImpl to query both the hot table and its archive.
+     */
+
     Optional<T> findDeletedById(Id id);
 
-    @Query("SELECT t FROM #{#entityName} t WHERE t.state = 'DELETED' ORDER BY t.updatedAt DESC")
     List<T> findAllDeleted();
 
-    @Query("SELECT t FROM #{#entityName} t WHERE t.state = 'DELETED' ORDER BY t.updatedAt DESC")
     Page<T> findAllDeleted(Pageable pageable);
 
     /*
         Modified Delete Methods
+
+        These are JPQL bulk updates, #{#entityName} is the entity name and not the table name (e.g. "User" and "users").
      */
 
     /**
      * Instead of removing from database this method changes entity state.
+     * Update date is refreshed as it marks the start of the archive retention period.
      *
      * @param entity entity
      * @return {@link Integer} number of modified entries
@@ -64,11 +69,12 @@ public interface BaseRepository<T extends BaseEntity, Id> extends JpaRepository<
      */
     @Modifying
     @Transactional
-    @Query(value = "UPDATE #{#entityName} t SET t.state = 'DELETED' WHERE t = ?1", nativeQuery = true)
+    @Query("UPDATE #{#entityName} t SET t.state = com.eralp.entities.enums.State.DELETED, t.updatedAt = CURRENT_TIMESTAMP WHERE t = ?1")
     int softDelete(T entity);
 
     /**
      * Instead of removing from database this method changes entity state.
+     * Update date is refreshed as it marks the start of the archive retention period.
      *
      * @param id id
      * @return {@link Integer} number of modified entries
@@ -76,11 +82,12 @@ public interface BaseRepository<T extends BaseEntity, Id> extends JpaRepository<
      */
     @Modifying
     @Transactional
-    @Query(value = "UPDATE #{#entityName} t SET t.state = 'DELETED' WHERE t.id = ?1", nativeQuery = true)
+    @Query("UPDATE #{#entityName} t SET t.state = com.eralp.entities.enums.State.DELETED, t.updatedAt = CURRENT_TIMESTAMP WHERE t.id = ?1")
     int softDeleteById(Id id);
 
     /**
      * Instead of removing from database this method changes entity state.
+     * Update date is refreshed as it marks the start of the archive retention period.
      *
      * @param entities {@link Iterable} entities
      * @return {@link Integer} number of modified entries
@@ -88,11 +95,12 @@ public interface BaseRepository<T extends BaseEntity, Id> extends JpaRepository<
      */
     @Modifying
     @Transactional
-    @Query(value = "UPDATE #{#entityName} t SET t.state = 'DELETED' WHERE t IN ?1", nativeQuery = true)
+    @Query("UPDATE #{#entityName} t SET t.state = com.eralp.entities.enums.State.DELETED, t.updatedAt = CURRENT_TIMESTAMP WHERE t IN ?1")
     int softDeleteAll(Iterable<T> entities);
 
     /**
      * Instead of removing from database this method changes entity state.
+     * Update date is refreshed as it marks the start of the archive retention period.
      *
      * @param ids {@link Iterable} ids
      * @return {@link Integer} number of modified entries
@@ -100,7 +108,7 @@ public interface BaseRepository<T extends BaseEntity, Id> extends JpaRepository<
      */
     @Modifying
     @Transactional
-    @Query(value = "UPDATE #{#entityName} t SET t.state = 'DELETED' WHERE t.id IN ?1", nativeQuery = true)
+    @Query("UPDATE #{#entityName} t SET t.state = com.eralp.entities.enums.State.DELETED, t.updatedAt = CURRENT_TIMESTAMP WHERE t.id IN ?1")
     int softDeleteAllById(Iterable<Id> ids);
 
     /**
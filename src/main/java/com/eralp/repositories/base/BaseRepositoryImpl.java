@@ -0,0 +1,112 @@
+package com.eralp.repositories.base;
+
+import com.eralp.entities.base.BaseEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.Table;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * This is the base class of every repository that extends {@link BaseRepository}.
+ * It implements the find methods of deleted entities, which have to read both the hot table and its archive table.
+ * Only the tables listed in {@link ArchiveTable} have an archive, deleted rows of other tables stay in the hot table.
+ *
+ * @param <T>  The type of the entity the repository manages
+ * @param <Id> The type of the entity's id
+ * @author Eralp Nitelik
+ */
+public class BaseRepositoryImpl<T extends BaseEntity, Id> extends SimpleJpaRepository<T, Id> {
+    private final EntityManager entityManager;
+    private final String deletedRows;
+
+    public BaseRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityManager = entityManager;
+        String table = tableName(entityInformation.getJavaType());
+        this.deletedRows = ArchiveTable.of(table)
+                .map(archive -> "SELECT " + archive.columnList() + " FROM " + table + " WHERE state = 'DELETED'" +
+                        " UNION ALL SELECT " + archive.columnList() + " FROM " + archive.archive())
+                .orElse("SELECT * FROM " + table + " WHERE state = 'DELETED'");
+    }
+
+    /**
+     * Finds a deleted entity by id, either from the hot table or from the archive.
+     *
+     * @param id id of the entity
+     * @return an {@link Optional} of the deleted entity
+     * @author Eralp Nitelik
+     */
+    public Optional<T> findDeletedById(Id id) {
+        List<T> result = readOnlyQuery("SELECT * FROM (" + deletedRows + ") d WHERE d.id = ?1")
+                .setParameter(1, id)
+                .getResultList();
+        return result.stream().findFirst();
+    }
+
+    /**
+     * Finds all deleted entities, including the archived ones, ordered by their deletion date.
+     *
+     * @return {@link List} of deleted entities
+     * @author Eralp Nitelik
+     */
+    public List<T> findAllDeleted() {
+        return readOnlyQuery("SELECT * FROM (" + deletedRows + ") d ORDER BY d.updated_at DESC")
+                .getResultList();
+    }
+
+    /**
+     * Finds a page of deleted entities, including the archived ones, ordered by their deletion date.
+     *
+     * @param pageable paging information
+     * @return {@link Page} of deleted entities
+     * @author Eralp Nitelik
+     */
+    public Page<T> findAllDeleted(@NonNull Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(findAllDeleted());
+        }
+        List<T> content = readOnlyQuery("SELECT * FROM (" + deletedRows + ") d ORDER BY d.updated_at DESC LIMIT ?1 OFFSET ?2")
+                .setParameter(1, pageable.getPageSize())
+                .setParameter(2, pageable.getOffset())
+                .getResultList();
+        Number total = (Number) entityManager
+                .createNativeQuery("SELECT count(*) FROM (" + deletedRows + ") d")
+                .getSingleResult();
+        return new PageImpl<>(content, pageable, total.longValue());
+    }
+
+    /**
+     * Creates a native query that maps rows to the entity type.
+     * Results are read-only, archived rows do not exist in the hot table and must never be flushed back.
+     *
+     * @param sql native sql
+     * @return a read-only native {@link Query}
+     * @author Eralp Nitelik
+     */
+    private Query readOnlyQuery(String sql) {
+        return entityManager
+                .createNativeQuery(sql, getDomainClass())
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
+
+    /**
+     * Finds the table name of the entity from its {@link Table} annotation.
+     *
+     * @param entityType the type of the entity
+     * @return the table name
+     * @author Eralp Nitelik
+     */
+    private static String tableName(Class<?> entityType) {
+        Table table = entityType.getAnnotation(Table.class);
+        return table != null && !table.name().isEmpty() ? table.name() : entityType.getSimpleName().toLowerCase();
+    }
+}
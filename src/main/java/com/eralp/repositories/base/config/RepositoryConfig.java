@@ -0,0 +1,15 @@
+package com.eralp.repositories.base.config;
+
+import com.eralp.repositories.base.BaseRepositoryImpl;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * This configuration class enables JPA repositories and sets {@link BaseRepositoryImpl} as their base class.
+ *
+ * @author Eralp Nitelik
+ */
+@Configuration
+@EnableJpaRepositories(basePackages = "com.eralp.repositories", repositoryBaseClass = BaseRepositoryImpl.class)
+public class RepositoryConfig {
+}
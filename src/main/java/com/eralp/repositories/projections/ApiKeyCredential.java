@@ -0,0 +1,19 @@
+package com.eralp.repositories.projections;
+
+import com.eralp.entities.ApiKey;
+import com.eralp.entities.enums.Role;
+
+import java.util.Set;
+
+/**
+ * Read-only projection of a usable {@link ApiKey} joined with its owner, used to build the in-memory key index.
+ *
+ * @param prefix prefix of the key
+ * @param digest keyed digest of the key
+ * @param userId id of the owner
+ * @param email  email of the owner
+ * @param roles  roles of the owner
+ * @author Eralp Nitelik
+ */
+public record ApiKeyCredential(String prefix, String digest, String userId, String email, Set<Role> roles) {
+}
@@ -0,0 +1,28 @@
+package com.eralp.repositories.projections;
+
+import com.eralp.entities.Token;
+import com.eralp.entities.enums.Role;
+import com.eralp.entities.enums.State;
+
+import java.util.Set;
+
+/**
+ * Read-only projection of a {@link Token} joined with its user, used to introspect a batch of tokens with one query.
+ *
+ * @param tokenDigest digest of the token, see {@link com.eralp.configuration.security.jwt.TokenDigest}
+ * @param loggedOut   true if the owner logged out with the token
+ * @param revoked     true if the token was revoked by a newer login
+ * @param email       email of the owner
+ * @param roles       roles of the owner
+ * @param userState   state of the owner
+ * @author Eralp Nitelik
+ */
+public record TokenIntrospection(String tokenDigest, boolean loggedOut, boolean revoked, String email, Set<Role> roles, State userState) {
+    /**
+     * @return true if the token is neither logged out nor revoked and its owner is active
+     * @author Eralp Nitelik
+     */
+    public boolean isUsable() {
+        return !loggedOut && !revoked && userState == State.ACTIVE;
+    }
+}
@@ -0,0 +1,20 @@
+package com.eralp.repositories.projections;
+
+import com.eralp.entities.Token;
+import com.eralp.entities.enums.Role;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Read-only projection of a usable opaque {@link Token} joined with its user, used to restore a session that is not in memory.
+ *
+ * @param tokenDigest digest of the token, see {@link com.eralp.configuration.security.jwt.TokenDigest}
+ * @param userId      id of the owner
+ * @param email       email of the owner
+ * @param roles       roles of the owner
+ * @param issuedAt    when the token was issued
+ * @author Eralp Nitelik
+ */
+public record TokenSession(String tokenDigest, String userId, String email, Set<Role> roles, Date issuedAt) {
+}
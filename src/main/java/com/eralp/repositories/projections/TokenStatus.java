@@ -0,0 +1,21 @@
+package com.eralp.repositories.projections;
+
+import com.eralp.entities.Token;
+
+/**
+ * Read-only projection of a {@link Token} that carries only the fields needed to decide if a token is usable.
+ * It is selected with a constructor expression, so it is never registered in the persistence context.
+ *
+ * @param loggedOut true if the owner logged out with the token
+ * @param revoked   true if the token was revoked by a newer login
+ * @author Eralp Nitelik
+ */
+public record TokenStatus(boolean loggedOut, boolean revoked) {
+    /**
+     * @return true if the token is neither logged out nor revoked
+     * @author Eralp Nitelik
+     */
+    public boolean isUsable() {
+        return !loggedOut && !revoked;
+    }
+}
@@ -0,0 +1,42 @@
+package com.eralp.repositories.projections;
+
+import com.eralp.entities.User;
+import com.eralp.entities.converter.RoleMask;
+import com.eralp.entities.enums.Role;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read-only projection of a {@link User} that is used as the principal of authenticated requests.
+ * Unlike the entity it does not carry the password hash or the tokens of the user.
+ *
+ * @param id    id of the user
+ * @param email email of the user which is also the username
+ * @param roles roles of the user
+ * @author Eralp Nitelik
+ */
+public record UserPrincipal(String id, String email, Set<Role> roles) implements Principal {
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    /**
+     * @return the shared immutable authority list of the roles
+     * @author Eralp Nitelik
+     */
+    public List<GrantedAuthority> getAuthorities() {
+        return RoleMask.authorities(roles);
+    }
+
+    /**
+     * @return bitmask of the roles
+     * @author Eralp Nitelik
+     */
+    public int roleMask() {
+        return RoleMask.of(roles);
+    }
+}
@@ -0,0 +1,100 @@
+package com.eralp.services;
+
+import com.eralp.configuration.invalidation.InvalidationBus;
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.configuration.locale.LocaleSelector;
+import com.eralp.configuration.security.apikey.ApiKeyHasher;
+import com.eralp.configuration.security.apikey.ApiKeyIndex;
+import com.eralp.dto.request.ApiKeyRequestDto;
+import com.eralp.dto.response.ApiKeyResponseDto;
+import com.eralp.entities.ApiKey;
+import com.eralp.entities.User;
+import com.eralp.exceptions.custom.UserNotFoundException;
+import com.eralp.repositories.ApiKeyRepository;
+import com.eralp.repositories.UserRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * This class represents the service layer for the {@link ApiKey} entity.
+ * Every change is published to the {@link ApiKeyIndex} of all nodes, revocations are also applied to this node immediately.
+ *
+ * @author Eralp Nitelik
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ApiKeyService {
+    private final ApiKeyRepository apiKeyRepository;
+    private final UserRepository userRepository;
+    private final ApiKeyHasher apiKeyHasher;
+    private final ApiKeyIndex apiKeyIndex;
+    private final InvalidationBus invalidationBus;
+
+    /**
+     * Creates a new API key for the given user. The key is only returned by this method.
+     *
+     * @param request {@link ApiKeyRequestDto} object containing the owner and the name of the key
+     * @return {@link ApiKeyResponseDto} object with the generated key
+     * @author Eralp Nitelik
+     */
+    @Transactional
+    public ApiKeyResponseDto create(ApiKeyRequestDto request) {
+        User user = userRepository.findActiveById(request.getUserId())
+                .orElseThrow(() -> new UserNotFoundException(LocaleSelector.withCode("exception.authentication.login.not_exists")));
+        String prefix = apiKeyHasher.generatePrefix();
+        String key = apiKeyHasher.generateKey(prefix);
+        ApiKey apiKey = apiKeyRepository.save(ApiKey.builder()
+                .name(request.getName())
+                .prefix(prefix)
+                .digest(apiKeyHasher.digestHex(key))
+                .user(user)
+                .build());
+        invalidationBus.publish(InvalidationEvent.apiKeysChanged());
+        log.info("API key {} created for {}.", prefix, user.getUsername());
+        ApiKeyResponseDto response = toResponse(apiKey);
+        response.setKey(key);
+        return response;
+    }
+
+    /**
+     * @return {@link List} of {@link ApiKeyResponseDto} of the active keys, without the keys themselves
+     * @author Eralp Nitelik
+     */
+    public List<ApiKeyResponseDto> findAll() {
+        return apiKeyRepository.findAllActive().stream()
+                .map(ApiKeyService::toResponse)
+                .toList();
+    }
+
+    /**
+     * Revokes the key with the given id. The key stops working on this node immediately.
+     *
+     * @param id id of the key
+     * @return true if a key was revoked
+     * @author Eralp Nitelik
+     */
+    public boolean revoke(String id) {
+        boolean revoked = apiKeyRepository.softDeleteById(id) > 0;
+        if (revoked) {
+            apiKeyIndex.reload();
+            invalidationBus.publish(InvalidationEvent.apiKeysChanged());
+            log.info("API key {} revoked.", id);
+        }
+        return revoked;
+    }
+
+    private static ApiKeyResponseDto toResponse(ApiKey apiKey) {
+        return ApiKeyResponseDto.builder()
+                .id(apiKey.getId())
+                .name(apiKey.getName())
+                .prefix(apiKey.getPrefix())
+                .userId(apiKey.getUser().getId())
+                .createdAt(apiKey.getCreatedAt())
+                .build();
+    }
+}
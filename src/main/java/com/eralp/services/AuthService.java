@@ -1,32 +1,45 @@
 package com.eralp.services;
 
+import com.eralp.configuration.invalidation.InvalidationBus;
+import com.eralp.configuration.invalidation.InvalidationEvent;
 import com.eralp.configuration.locale.LocaleSelector;
+import com.eralp.configuration.metrics.AuthMetrics;
+import com.eralp.configuration.metrics.AuthOperation;
+import com.eralp.configuration.security.degraded.DatabaseCircuitBreaker;
 import com.eralp.configuration.security.jwt.JwtService;
+import com.eralp.configuration.security.jwt.TokenDigest;
+import com.eralp.configuration.security.opaque.OpaqueTokenStore;
 import com.eralp.dto.request.LoginRequestDto;
 import com.eralp.dto.request.RegisterRequestDto;
 import com.eralp.dto.response.LoginResponseDto;
+import com.eralp.dto.response.LogoutResponseDto;
 import com.eralp.dto.response.RegisterResponseDto;
 import com.eralp.entities.Token;
 import com.eralp.entities.User;
 import com.eralp.entities.enums.Role;
 import com.eralp.entities.enums.TokenType;
 import com.eralp.exceptions.custom.UserAlreadyExistsException;
+import com.eralp.exceptions.custom.UserNotFoundException;
 import com.eralp.repositories.TokenRepository;
 import com.eralp.repositories.UserRepository;
+import com.eralp.repositories.projections.UserPrincipal;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 /**
  * This class represents the authentication service layer for the {@link User} entity.
+ * Every operation writes to the database, so they fail fast while the {@link DatabaseCircuitBreaker} is open.
  *
  * @author Eralp Nitelik
  */
@@ -39,6 +52,16 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final AuthMetrics authMetrics;
+    private final InvalidationBus invalidationBus;
+    private final OpaqueTokenStore opaqueTokenStore;
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    /**
+     * Format of issued tokens, "jwt" or "opaque". Tokens of both formats are accepted regardless of this setting.
+     */
+    @Value("${auth.token-mode:jwt}")
+    private String tokenMode;
 
     /**
      * Registers a new user.
@@ -49,6 +72,7 @@ public class AuthService {
      */
     @Transactional
     public RegisterResponseDto register(RegisterRequestDto request) {
+        databaseCircuitBreaker.ensureWritable();
         if (userRepository.findActiveUserByEmail(request.getEmail()).isPresent()) {
             throw new UserAlreadyExistsException(LocaleSelector.withCode("exception.authentication.register.exists"));
         }
@@ -71,16 +95,20 @@ public class AuthService {
      * @author Eralp Nitelik
      */
     public LoginResponseDto login(LoginRequestDto request) {
-        User user = userRepository.findActiveUserByEmail(request.getEmail())
-                .orElseThrow(() -> new UsernameNotFoundException(LocaleSelector.withCode("exception.authentication.login.not_exists")));
+        databaseCircuitBreaker.ensureWritable();
+        long start = System.nanoTime();
+        Optional<User> activeUser = userRepository.findActiveUserByEmail(request.getEmail());
+        authMetrics.record(AuthOperation.USER_LOOKUP, start);
+        User user = activeUser
+                .orElseThrow(() -> new UserNotFoundException(LocaleSelector.withCode("exception.authentication.login.not_exists")));
         authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getEmail(),
                         request.getPassword()
                 )
         );
-        revokeAllUserTokens(user);
-        String jwtToken = saveAndGetJwtToken(user);
+        revokeAllUserTokens(user.getId());
+        String jwtToken = saveAndGetToken(user);
         log.info("{} authenticated.", user.getUsername());
         return LoginResponseDto.builder()
                 .token(jwtToken)
@@ -88,37 +116,94 @@ public class AuthService {
     }
 
     /**
-     * Generates and saves the generated jwt token for the authenticating user as {@link Token}.
+     * Generates and saves a token for the authenticating user as {@link Token}.
+     * Depending on "auth.token-mode" the token is either a JWT or an opaque token whose session is kept in memory.
      *
      * @param user {@link User} entity that the token is bound to
-     * @return the generated jwt token as String
+     * @return the generated token as String
      * @author Eralp Nitelik
      */
-    private String saveAndGetJwtToken(User user) {
-        String jwtToken = jwtService.generateToken(user);
+    private String saveAndGetToken(User user) {
+        long start = System.nanoTime();
+        boolean opaque = "opaque".equalsIgnoreCase(tokenMode);
+        String token = opaque ? opaqueTokenStore.generate() : jwtService.generateToken(user);
+        String tokenDigest = TokenDigest.of(token);
+        // Read before the save, so a revocation that commits in between keeps the session out of memory.
+        long generation = opaqueTokenStore.generation();
         tokenRepository.save(Token.builder()
-                .token(jwtToken)
+                .tokenDigest(tokenDigest)
                 .user(user)
-                .tokenType(TokenType.BEARER)
+                .tokenType(opaque ? TokenType.OPAQUE : TokenType.BEARER)
                 .loggedOut(false)
                 .revoked(false)
                 .build());
-        return jwtToken;
+        if (opaque) {
+            opaqueTokenStore.put(token, tokenDigest, new UserPrincipal(user.getId(), user.getEmail(), user.getRoles()), generation);
+        }
+        authMetrics.record(AuthOperation.TOKEN_ISSUE, start);
+        return token;
+    }
+
+    /**
+     * Logs out every session of the user by revoking all of its valid tokens.
+     *
+     * @param userId id of the user
+     * @return {@link LogoutResponseDto} object with the number of revoked tokens
+     * @author Eralp Nitelik
+     */
+    public LogoutResponseDto logoutAll(String userId) {
+        databaseCircuitBreaker.ensureWritable();
+        int revoked = revokeAllUserTokens(userId);
+        log.info("{} tokens of user {} revoked.", revoked, userId);
+        return LogoutResponseDto.builder()
+                .revokedTokens(revoked)
+                .build();
+    }
+
+    /**
+     * Logs out every session of the given users with a single update.
+     * Other nodes are notified with one event per {@link InvalidationEvent#MAX_KEYS} users.
+     *
+     * @param userIds ids of the users
+     * @return {@link LogoutResponseDto} object with the number of revoked tokens
+     * @author Eralp Nitelik
+     */
+    @Transactional
+    public LogoutResponseDto logoutAll(Collection<String> userIds) {
+        databaseCircuitBreaker.ensureWritable();
+        long start = System.nanoTime();
+        int revoked = tokenRepository.revokeAllValidTokensByUserIn(userIds);
+        authMetrics.record(AuthOperation.TOKEN_REVOKE, start);
+        if (revoked > 0) {
+            List<String> distinctIds = userIds.stream().distinct().toList();
+            distinctIds.forEach(opaqueTokenStore::removeUser);
+            for (int from = 0; from < distinctIds.size(); from += InvalidationEvent.MAX_KEYS) {
+                List<String> batch = distinctIds.subList(from, Math.min(from + InvalidationEvent.MAX_KEYS, distinctIds.size()));
+                invalidationBus.publish(InvalidationEvent.tokensRevoked(batch));
+            }
+        }
+        log.info("{} tokens of {} users revoked.", revoked, userIds.size());
+        return LogoutResponseDto.builder()
+                .revokedTokens(revoked)
+                .build();
     }
 
     /**
      * Revokes all the tokens that belong to the given {@link User}.
      * This is necessary to make sure a user does not have multiple active tokens at a time.
      *
-     * @param user {@link User} entity that own the tokens
+     * @param userId id of the {@link User} that owns the tokens
+     * @return number of revoked tokens
      * @author Eralp Nitelik
      */
-    private void revokeAllUserTokens(User user) {
-        List<Token> validUserTokens = tokenRepository.findAllValidTokensByUser(user.getId());
-        if (validUserTokens.isEmpty()) {
-            return;
+    private int revokeAllUserTokens(String userId) {
+        long start = System.nanoTime();
+        int revoked = tokenRepository.revokeAllValidTokensByUser(userId);
+        authMetrics.record(AuthOperation.TOKEN_REVOKE, start);
+        if (revoked > 0) {
+            opaqueTokenStore.removeUser(userId);
+            invalidationBus.publish(InvalidationEvent.tokensRevoked(userId));
         }
-        validUserTokens.forEach(token -> token.setRevoked(true));
-        tokenRepository.saveAll(validUserTokens);
+        return revoked;
     }
 }
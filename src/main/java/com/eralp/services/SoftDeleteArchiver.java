@@ -0,0 +1,155 @@
+package com.eralp.services;
+
+import com.eralp.entities.ApiKey;
+import com.eralp.entities.Token;
+import com.eralp.entities.User;
+import com.eralp.repositories.base.ArchiveTable;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This service moves entities that have been soft deleted longer than the retention period to archive tables.
+ * Rows are moved in small batches, each in its own transaction, with a pause between batches to avoid long locks.
+ * Tokens and API keys are archived before their users, as they reference users. The statements are plain SQL,
+ * so the archiver behaves the same on PostgreSQL and on the in-memory database of the tests.
+ * Columns are copied by name, see {@link ArchiveTable}, so archives keep working when the hot tables change.
+ *
+ * @author Eralp Nitelik
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "archive.enabled", havingValue = "true", matchIfMissing = true)
+public class SoftDeleteArchiver {
+    private static final String EXPIRED_TOKENS = """
+            SELECT t.id FROM tokens t
+            WHERE (t.state = 'DELETED' AND t.updated_at < ?)
+            OR t.user_id IN (SELECT u.id FROM users u WHERE u.state = 'DELETED' AND u.updated_at < ?)""";
+
+    private static final String EXPIRED_API_KEYS = """
+            SELECT k.id FROM api_keys k
+            WHERE (k.state = 'DELETED' AND k.updated_at < ?)
+            OR k.user_id IN (SELECT u.id FROM users u WHERE u.state = 'DELETED' AND u.updated_at < ?)""";
+
+    /*
+        Users are only moved once nothing references them, tokens and keys of a user are moved first in the same run.
+     */
+    private static final String EXPIRED_USERS = """
+            SELECT u.id FROM users u
+            WHERE u.state = 'DELETED' AND u.updated_at < ?
+            AND NOT EXISTS (SELECT 1 FROM tokens t WHERE t.user_id = u.id)
+            AND NOT EXISTS (SELECT 1 FROM api_keys k WHERE k.user_id = u.id)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${archive.retention}")
+    private Duration retention;
+
+    @Value("${archive.batch-size}")
+    private int batchSize;
+
+    @Value("${archive.pause}")
+    private Duration pause;
+
+    /**
+     * Archives expired deleted tokens and users. Runs periodically with the configured interval.
+     *
+     * @author Eralp Nitelik
+     */
+    @Scheduled(initialDelayString = "${archive.interval}", fixedDelayString = "${archive.interval}")
+    public void archive() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        int tokens = archiveInBatches(() -> archiveBatch(ArchiveTable.TOKENS, EXPIRED_TOKENS, cutoff, cutoff));
+        int apiKeys = archiveInBatches(() -> archiveBatch(ArchiveTable.API_KEYS, EXPIRED_API_KEYS, cutoff, cutoff));
+        int users = archiveInBatches(() -> archiveBatch(ArchiveTable.USERS, EXPIRED_USERS, cutoff));
+        if (tokens + apiKeys + users > 0) {
+            // Moved rows no longer exist in the hot tables.
+            entityManagerFactory.getCache().evict(User.class);
+            entityManagerFactory.getCache().evict(Token.class);
+            entityManagerFactory.getCache().evict(ApiKey.class);
+            log.info("Archived {} users, {} tokens and {} API keys deleted before {}.", users, tokens, apiKeys, cutoff);
+        }
+    }
+
+    /**
+     * Moves a single batch of expired rows to the archive table. The selected rows stay locked until the transaction
+     * commits, so a row that is restored concurrently is either moved before the restore or not at all.
+     *
+     * @param archive    the table to move rows from
+     * @param expiredIds query that selects the ids of the expired rows
+     * @param arguments  arguments of the query
+     * @return number of moved rows
+     * @author Eralp Nitelik
+     */
+    private int archiveBatch(ArchiveTable archive, String expiredIds, Object... arguments) {
+        Object[] selectArguments = Arrays.copyOf(arguments, arguments.length + 1);
+        selectArguments[arguments.length] = batchSize;
+        List<String> ids = jdbcTemplate.queryForList(expiredIds + " LIMIT ? FOR UPDATE", String.class, selectArguments);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Object[] idArguments = ids.toArray();
+        jdbcTemplate.update("INSERT INTO %1$s (%2$s, archived_at) SELECT %2$s, CURRENT_TIMESTAMP FROM %3$s WHERE id IN (%4$s)"
+                .formatted(archive.archive(), archive.columnList(), archive.table(), placeholders), idArguments);
+        return jdbcTemplate.update("DELETE FROM %s WHERE id IN (%s)".formatted(archive.table(), placeholders), idArguments);
+    }
+
+    /**
+     * Runs the given batch until a batch moves fewer rows than the batch size.
+     *
+     * @param batch a single archive statement that returns the number of moved rows
+     * @return total number of moved rows
+     * @author Eralp Nitelik
+     */
+    private int archiveInBatches(ArchiveBatch batch) {
+        int total = 0;
+        int moved;
+        do {
+            Integer result = transactionTemplate.execute(status -> batch.run());
+            moved = result == null ? 0 : result;
+            total += moved;
+            if (moved == batchSize && !pause()) {
+                break;
+            }
+        } while (moved == batchSize);
+        return total;
+    }
+
+    /**
+     * Throttles the archiver between batches.
+     *
+     * @return false if the thread was interrupted
+     * @author Eralp Nitelik
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ArchiveBatch {
+        int run();
+    }
+}
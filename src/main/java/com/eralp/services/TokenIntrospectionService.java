@@ -0,0 +1,194 @@
+package com.eralp.services;
+
+import com.eralp.configuration.metrics.AuthMetrics;
+import com.eralp.configuration.metrics.AuthOperation;
+import com.eralp.configuration.security.degraded.DatabaseCircuitBreaker;
+import com.eralp.configuration.security.jwt.JwtService;
+import com.eralp.configuration.security.jwt.TokenDigest;
+import com.eralp.configuration.security.opaque.OpaqueSession;
+import com.eralp.configuration.security.opaque.OpaqueTokenStore;
+import com.eralp.dto.response.IntrospectionResponseDto;
+import com.eralp.repositories.TokenRepository;
+import com.eralp.repositories.projections.TokenIntrospection;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class introspects batches of tokens for gateways.
+ * Signatures are verified in parallel, then the stored state of every verified token and its owner
+ * is loaded with a single query. A token is active if its signature and expiration are valid,
+ * it is neither logged out nor revoked, and its owner is active.
+ * Opaque tokens are looked up in the {@link OpaqueTokenStore} instead, those that are not in memory with a single query
+ * as well. While the database is unavailable, only opaque sessions in memory are found.
+ *
+ * @author Eralp Nitelik
+ */
+@Service
+public class TokenIntrospectionService {
+    /**
+     * Smaller batches are verified on the request thread, as handing them over costs more than verifying them.
+     */
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    private final JwtService jwtService;
+    private final TokenRepository tokenRepository;
+    private final AuthMetrics authMetrics;
+    private final OpaqueTokenStore opaqueTokenStore;
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    public TokenIntrospectionService(
+            JwtService jwtService,
+            TokenRepository tokenRepository,
+            AuthMetrics authMetrics,
+            OpaqueTokenStore opaqueTokenStore,
+            DatabaseCircuitBreaker databaseCircuitBreaker,
+            @Value("${auth.introspection.parallelism:0}") int parallelism
+    ) {
+        this.jwtService = jwtService;
+        this.tokenRepository = tokenRepository;
+        this.authMetrics = authMetrics;
+        this.opaqueTokenStore = opaqueTokenStore;
+        this.databaseCircuitBreaker = databaseCircuitBreaker;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "introspection-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Introspects the given tokens.
+     *
+     * @param tokens tokens to introspect
+     * @return {@link List} of {@link IntrospectionResponseDto} in the order of the tokens
+     * @author Eralp Nitelik
+     */
+    public List<IntrospectionResponseDto> introspect(List<String> tokens) {
+        Claims[] claims = verifyAll(tokens);
+        // Tokens are looked up by their indexed digest rather than by comparing the tokens themselves.
+        String[] digests = new String[claims.length];
+        Set<String> verified = new HashSet<>();
+        Set<String> opaque = new HashSet<>();
+        for (int i = 0; i < claims.length; i++) {
+            String token = tokens.get(i);
+            if (claims[i] != null) {
+                digests[i] = TokenDigest.of(token);
+                verified.add(digests[i]);
+            } else if (token != null && OpaqueTokenStore.isOpaque(token)) {
+                opaque.add(token);
+            }
+        }
+        Map<String, OpaqueSession> sessions = opaque.isEmpty() ? Map.of() : databaseCircuitBreaker.call(
+                () -> opaqueTokenStore.findAll(opaque),
+                () -> opaqueTokenStore.findAllInMemory(opaque)
+        );
+        Map<String, TokenIntrospection> stored = new HashMap<>();
+        if (!verified.isEmpty()) {
+            long start = System.nanoTime();
+            tokenRepository.findIntrospectionsByDigestIn(verified)
+                    .forEach(introspection -> stored.put(introspection.tokenDigest(), introspection));
+            authMetrics.record(AuthOperation.TOKEN_LOOKUP, start);
+        }
+        List<IntrospectionResponseDto> results = new ArrayList<>(tokens.size());
+        for (int i = 0; i < claims.length; i++) {
+            String token = tokens.get(i);
+            if (token != null && OpaqueTokenStore.isOpaque(token)) {
+                results.add(result(sessions.get(token)));
+            } else {
+                results.add(result(claims[i], claims[i] == null ? null : stored.get(digests[i])));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Verifies the signatures of the tokens, in parallel chunks if the batch is large enough.
+     *
+     * @param tokens tokens to verify
+     * @return claims of each token, null for invalid tokens
+     */
+    private Claims[] verifyAll(List<String> tokens) {
+        Claims[] claims = new Claims[tokens.size()];
+        if (tokens.size() < PARALLEL_THRESHOLD) {
+            verifyRange(tokens, claims, 0, tokens.size());
+            return claims;
+        }
+        int chunkSize = (tokens.size() + parallelism - 1) / parallelism;
+        List<Callable<Void>> chunks = new ArrayList<>(parallelism);
+        for (int from = 0; from < tokens.size(); from += chunkSize) {
+            int start = from;
+            int end = Math.min(from + chunkSize, tokens.size());
+            chunks.add(() -> {
+                verifyRange(tokens, claims, start, end);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> chunk : executor.invokeAll(chunks)) {
+                chunk.get();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Token introspection was interrupted", exception);
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Token introspection failed", exception.getCause());
+        }
+        return claims;
+    }
+
+    private void verifyRange(List<String> tokens, Claims[] claims, int from, int to) {
+        for (int i = from; i < to; i++) {
+            String token = tokens.get(i);
+            claims[i] = token == null || OpaqueTokenStore.isOpaque(token) ? null : jwtService.verify(token);
+        }
+    }
+
+    private static IntrospectionResponseDto result(Claims claims, TokenIntrospection stored) {
+        if (claims == null || stored == null || !stored.isUsable() || !stored.email().equals(claims.getSubject())) {
+            return IntrospectionResponseDto.inactive();
+        }
+        return IntrospectionResponseDto.builder()
+                .active(true)
+                .subject(stored.email())
+                .roles(stored.roles())
+                .expiresAt(claims.getExpiration())
+                .build();
+    }
+
+    private static IntrospectionResponseDto result(OpaqueSession session) {
+        if (session == null || session.isExpired(System.currentTimeMillis())) {
+            return IntrospectionResponseDto.inactive();
+        }
+        return IntrospectionResponseDto.builder()
+                .active(true)
+                .subject(session.principal().email())
+                .roles(session.principal().roles())
+                .expiresAt(new Date(session.expiresAtMillis()))
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
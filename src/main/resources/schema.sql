@@ -0,0 +1,80 @@
+-- Runs after Hibernate creates the schema. (spring.jpa.defer-datasource-initialization)
+
+-- Archive tables have the columns listed in ArchiveTable followed by archived_at. Rows are copied by column name.
+-- Columns are nullable, so a column that is dropped from a hot table does not break archiving.
+CREATE TABLE IF NOT EXISTS users_archive (
+    id VARCHAR(255),
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    created_by VARCHAR(255),
+    updated_by VARCHAR(255),
+    state VARCHAR(255),
+    email VARCHAR(255),
+    password VARCHAR(255),
+    roles INTEGER,
+    archived_at TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS users_archive_id_idx ON users_archive (id);
+
+CREATE TABLE IF NOT EXISTS tokens_archive (
+    id VARCHAR(255),
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    created_by VARCHAR(255),
+    updated_by VARCHAR(255),
+    state VARCHAR(255),
+    token_digest VARCHAR(64),
+    token_type VARCHAR(255),
+    logged_out BOOLEAN,
+    revoked BOOLEAN,
+    user_id VARCHAR(255),
+    archived_at TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS tokens_archive_id_idx ON tokens_archive (id);
+CREATE INDEX IF NOT EXISTS tokens_archive_user_id_idx ON tokens_archive (user_id);
+
+CREATE TABLE IF NOT EXISTS api_keys_archive (
+    id VARCHAR(255),
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    created_by VARCHAR(255),
+    updated_by VARCHAR(255),
+    state VARCHAR(255),
+    name VARCHAR(255),
+    prefix VARCHAR(16),
+    digest VARCHAR(64),
+    user_id VARCHAR(255),
+    archived_at TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS api_keys_archive_id_idx ON api_keys_archive (id);
+CREATE INDEX IF NOT EXISTS api_keys_archive_user_id_idx ON api_keys_archive (user_id);
+
+-- Migrates archive tables that were created as copies of their hot tables before the columns above were added.
+ALTER TABLE tokens_archive ADD COLUMN IF NOT EXISTS token_digest VARCHAR(64);
+-- Tokens are only stored as digests, archived tokens must not be replayable either.
+ALTER TABLE tokens_archive DROP COLUMN IF EXISTS token;
+
+-- Lets the archiver find expired deleted rows without scanning active ones.
+CREATE INDEX IF NOT EXISTS users_deleted_idx ON users (updated_at) WHERE state = 'DELETED';
+CREATE INDEX IF NOT EXISTS tokens_deleted_idx ON tokens (updated_at) WHERE state = 'DELETED';
+CREATE INDEX IF NOT EXISTS api_keys_deleted_idx ON api_keys (updated_at) WHERE state = 'DELETED';
+-- Lets the archiver find the keys of deleted users, PostgreSQL does not index foreign keys.
+CREATE INDEX IF NOT EXISTS api_keys_user_id_idx ON api_keys (user_id);
+
+-- Lets a user's valid tokens be revoked without scanning the tokens of every user.
+CREATE INDEX IF NOT EXISTS tokens_user_id_valid_idx ON tokens (user_id) WHERE logged_out = false AND revoked = false;
+
+-- Lets RevocationSnapshot read the recently invalidated tokens.
+CREATE INDEX IF NOT EXISTS tokens_invalidated_idx ON tokens (updated_at) WHERE logged_out = true OR revoked = true;
+
+-- Field-level changes of entities annotated with @RecordHistory, written by EntityHistoryWriter.
+CREATE TABLE IF NOT EXISTS entity_history (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(64) NOT NULL,
+    entity_id VARCHAR(64) NOT NULL,
+    operation VARCHAR(16) NOT NULL,
+    changes TEXT,
+    changed_by VARCHAR(255),
+    changed_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS entity_history_entity_idx ON entity_history (entity_type, entity_id, changed_at);
@@ -0,0 +1,109 @@
+package com.eralp.benchmark;
+
+import com.eralp.SecurityTemplateApplication;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from launching a new JVM until the first successful registration request is answered.
+ * Every run starts the application in a separate process with the "test" profile, so each run is a cold start
+ * against a fresh in-memory database. Run it with ./gradlew startupBenchmark.
+ * <p>
+ * If "startup.budget-ms" is positive, the benchmark fails when the median exceeds it.
+ *
+ * @author Eralp Nitelik
+ */
+public class StartupBenchmark {
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(20);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.getInteger("startup.runs", 5);
+        long budgetMillis = Long.getLong("startup.budget-ms", 0);
+        StartupBenchmark benchmark = new StartupBenchmark();
+        List<Long> results = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            long millis = benchmark.measure(run);
+            results.add(millis);
+            System.out.printf("run %d: first successful request after %d ms%n", run, millis);
+        }
+        Collections.sort(results);
+        long median = results.get(results.size() / 2);
+        System.out.printf("time to first request over %d runs: min %d ms, median %d ms, max %d ms%n",
+                runs, results.get(0), median, results.get(results.size() - 1));
+        if (budgetMillis > 0 && median > budgetMillis) {
+            System.err.printf("Median startup time %d ms exceeds the budget of %d ms%n", median, budgetMillis);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Starts the application and polls the registration endpoint until it succeeds.
+     *
+     * @param run number of the run, used for the log file and the registered email
+     * @return milliseconds from starting the process to the first successful response
+     */
+    private long measure(int run) throws IOException, InterruptedException {
+        int port = freePort();
+        Path log = Path.of("build", "startup-benchmark-" + run + ".log");
+        log.getParent().toFile().mkdirs();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"startup" + run + "@eralp.com\",\"password\":\"startup-benchmark\"}"))
+                .build();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                SecurityTemplateApplication.class.getName(),
+                "--spring.profiles.active=test",
+                "--server.port=" + port)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            while (System.nanoTime() - started < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited during startup, see " + log);
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    }
+                } catch (IOException ignored) {
+                    // Not listening yet.
+                }
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            }
+            throw new IllegalStateException("Application did not answer within " + TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
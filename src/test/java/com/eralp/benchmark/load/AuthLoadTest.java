@@ -0,0 +1,195 @@
+package com.eralp.benchmark.load;
+
+import com.eralp.SecurityTemplateApplication;
+import com.eralp.entities.User;
+import com.eralp.entities.enums.Role;
+import com.eralp.repositories.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * End-to-end load test of the authentication endpoints. Run it with ./gradlew loadTest.
+ * <p>
+ * The application is started in this JVM with the "test" profile on an in-memory database, and seeded with
+ * "load.users" users that share one password. Users are split into separate pools for login and authenticated requests,
+ * because a login revokes the other tokens of its user. Logout gets one additional user per expected logout of the warmup
+ * and of the run, so every logout ends a token that is still valid. Register, login, "/test/user" and logout traffic
+ * is then generated at the configured arrival rates for "load.duration", and throughput, error rate and latency
+ * percentiles are reported per endpoint.
+ * <p>
+ * System properties: load.users, load.duration, load.warmup, load.rate.register, load.rate.login,
+ * load.rate.user, load.rate.logout (requests per second).
+ *
+ * @author Eralp Nitelik
+ */
+public class AuthLoadTest {
+    private static final String PASSWORD = "load-test-password";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+
+    private AuthLoadTest(int port) {
+        this.baseUrl = "http://localhost:" + port + "/api";
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("load.users", 1_000);
+        Duration duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+        Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+        double logoutRate = rate("logout", 10);
+        int warmupLogouts = expectedRequests(logoutRate, warmup);
+        int runLogouts = expectedRequests(logoutRate, duration);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SecurityTemplateApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run(args);
+        try {
+            AuthLoadTest loadTest = new AuthLoadTest(context.getEnvironment().getRequiredProperty("local.server.port", Integer.class));
+            List<String> emails = seed(context, users + warmupLogouts + runLogouts);
+            // Separate pools, a login revokes the tokens that the other scenarios use.
+            int poolSize = users / 2;
+            List<String> loginPool = emails.subList(0, poolSize);
+            List<String> tokens = loadTest.login(emails.subList(poolSize, users));
+            // Warmup and run log out different tokens, so the run does not measure logouts of tokens that are already logged out.
+            List<String> logoutTokens = loadTest.login(emails.subList(users, emails.size()));
+            List<String> warmupLogoutTokens = logoutTokens.subList(0, warmupLogouts);
+            List<String> runLogoutTokens = logoutTokens.subList(warmupLogouts, logoutTokens.size());
+
+            OpenModelLoadGenerator generator = new OpenModelLoadGenerator(loadTest.httpClient);
+            System.out.printf("Warming up for %s%n", warmup);
+            generator.run(loadTest.scenarios("warmup", loginPool, tokens, warmupLogoutTokens), warmup);
+            List<Scenario> scenarios = loadTest.scenarios("run", loginPool, tokens, runLogoutTokens);
+            System.out.printf("Measuring for %s%n", duration);
+            long elapsed = generator.run(scenarios, duration);
+            System.out.printf("%nResults of %d users over %s:%n", users, duration);
+            scenarios.stream()
+                    .filter(scenario -> scenario.ratePerSecond() > 0)
+                    .forEach(scenario -> System.out.println(scenario.report(elapsed)));
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Creates the scenarios with the rates from the system properties.
+     *
+     * @param prefix       makes registered emails unique between runs
+     * @param loginPool    emails that are used to log in
+     * @param tokens       tokens that are used for authenticated requests
+     * @param logoutTokens tokens that are logged out
+     * @return the scenarios
+     */
+    private List<Scenario> scenarios(String prefix, List<String> loginPool, List<String> tokens, List<String> logoutTokens) {
+        return List.of(
+                new Scenario("register", rate("register", 10), sequence ->
+                        post("/auth/register", credentials("load-" + prefix + "-" + sequence + "@eralp.com"))),
+                new Scenario("login", rate("login", 10), sequence ->
+                        post("/auth/login", credentials(loginPool.get((int) (sequence % loginPool.size()))))),
+                new Scenario("test/user", rate("user", 500), sequence ->
+                        authorized("/test/user", tokens.get((int) (sequence % tokens.size()))).GET().build()),
+                // Only wraps around if more logouts arrive than expected, see expectedRequests.
+                new Scenario("logout", rate("logout", 10), sequence ->
+                        authorized("/auth/logout", logoutTokens.get((int) (sequence % logoutTokens.size())))
+                                .POST(HttpRequest.BodyPublishers.noBody())
+                                .build())
+        );
+    }
+
+    /**
+     * Saves the users directly through the repository. The password is hashed once, as hashing it for every user
+     * would make the setup as slow as registering them.
+     *
+     * @param context the application context
+     * @param count   number of users
+     * @return emails of the users
+     */
+    private static List<String> seed(ConfigurableApplicationContext context, int count) {
+        String password = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        List<User> users = new ArrayList<>(count);
+        List<String> emails = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String email = "seed-" + i + "@eralp.com";
+            emails.add(email);
+            users.add(User.builder()
+                    .email(email)
+                    .password(password)
+                    .roles(Set.of(Role.USER))
+                    .build());
+        }
+        context.getBean(UserRepository.class).saveAll(users);
+        return emails;
+    }
+
+    /**
+     * Logs the users in concurrently.
+     *
+     * @param emails emails of the users
+     * @return tokens of the users
+     */
+    private List<String> login(List<String> emails) {
+        List<CompletableFuture<String>> tokens = emails.stream()
+                .map(email -> httpClient.sendAsync(post("/auth/login", credentials(email)), HttpResponse.BodyHandlers.ofString())
+                        .thenApply(this::token))
+                .toList();
+        return tokens.stream().map(CompletableFuture::join).toList();
+    }
+
+    private String token(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed during setup: " + response.body());
+        }
+        try {
+            return objectMapper.readTree(response.body()).path("data").path("token").asText();
+        } catch (Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private static String credentials(String email) {
+        return "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+    }
+
+    /**
+     * Returns how many requests a scenario sends in the given time, with some headroom for arrivals that start
+     * before the generator stops.
+     *
+     * @param ratePerSecond arrival rate of the scenario
+     * @param duration      duration of the traffic
+     * @return number of requests, at least one
+     */
+    private static int expectedRequests(double ratePerSecond, Duration duration) {
+        return (int) Math.ceil(ratePerSecond * duration.toMillis() / 1000.0 * 1.1) + 1;
+    }
+
+    private static double rate(String scenario, double defaultRate) {
+        return Double.parseDouble(System.getProperty("load.rate." + scenario, String.valueOf(defaultRate)));
+    }
+}
@@ -0,0 +1,94 @@
+package com.eralp.benchmark.load;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An open-model load generator. Requests of each {@link Scenario} are started at a fixed arrival rate on their own thread
+ * and sent asynchronously, so the rate does not drop when the server slows down, unlike a fixed number of looping clients.
+ *
+ * @author Eralp Nitelik
+ */
+public class OpenModelLoadGenerator {
+    private final HttpClient httpClient;
+
+    public OpenModelLoadGenerator(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Runs the scenarios concurrently for the given duration and waits for the outstanding responses.
+     *
+     * @param scenarios scenarios to run
+     * @param duration  how long requests are started for
+     * @return the elapsed time in nanoseconds, including the outstanding responses
+     * @throws InterruptedException if interrupted while waiting for the scenarios
+     */
+    public long run(List<Scenario> scenarios, Duration duration) throws InterruptedException {
+        Outstanding outstanding = new Outstanding();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        List<Thread> threads = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            if (scenario.ratePerSecond() <= 0) {
+                continue;
+            }
+            Thread thread = new Thread(() -> generate(scenario, start, end, outstanding), "load-" + scenario.name());
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        outstanding.await();
+        return System.nanoTime() - start;
+    }
+
+    private void generate(Scenario scenario, long start, long end, Outstanding outstanding) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / scenario.ratePerSecond());
+        for (long sequence = 0; ; sequence++) {
+            long intended = start + sequence * interval;
+            if (intended >= end) {
+                return;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            HttpRequest request = scenario.request(sequence);
+            CompletableFuture<HttpResponse<Void>> response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            outstanding.add(response.whenComplete((result, exception) -> scenario.record(
+                    System.nanoTime() - intended,
+                    exception == null && result.statusCode() / 100 == 2
+            )));
+        }
+    }
+
+    /**
+     * Responses that have not completed yet.
+     */
+    private static final class Outstanding {
+        private final Set<CompletableFuture<?>> futures = ConcurrentHashMap.newKeySet();
+
+        void add(CompletableFuture<?> future) {
+            futures.add(future);
+            future.whenComplete((result, exception) -> futures.remove(future));
+        }
+
+        void await() {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .orTimeout(1, TimeUnit.MINUTES)
+                    .exceptionally(exception -> null)
+                    .join();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.eralp.benchmark.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpRequest;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Traffic of one endpoint: the requests to send, the arrival rate and the results.
+ * Latencies are recorded from the intended start of each request, so a slow server does not hide its own queueing delay.
+ *
+ * @author Eralp Nitelik
+ */
+public class Scenario {
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    private final String name;
+    private final double ratePerSecond;
+    private final LongFunction<HttpRequest> requests;
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY, 3);
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param name          name of the scenario in the report
+     * @param ratePerSecond requests started per second, regardless of the responses
+     * @param requests      creates the request with the given sequence number
+     */
+    public Scenario(String name, double ratePerSecond, LongFunction<HttpRequest> requests) {
+        this.name = name;
+        this.ratePerSecond = ratePerSecond;
+        this.requests = requests;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public double ratePerSecond() {
+        return ratePerSecond;
+    }
+
+    HttpRequest request(long sequence) {
+        return requests.apply(sequence);
+    }
+
+    void record(long latencyNanos, boolean successful) {
+        latencies.recordValue(Math.min(latencyNanos, MAX_LATENCY));
+        if (!successful) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Returns a line with the throughput, error rate and latency percentiles of the scenario.
+     *
+     * @param elapsedNanos duration of the measurement
+     * @return the report line
+     */
+    String report(long elapsedNanos) {
+        long count = latencies.getTotalCount();
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%-12s %8d req %9.1f req/s %7.2f%% errors   p50 %8.2f ms   p99 %8.2f ms   p999 %8.2f ms   max %8.2f ms",
+                name, count, count / seconds, count == 0 ? 0 : 100.0 * errors.sum() / count,
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
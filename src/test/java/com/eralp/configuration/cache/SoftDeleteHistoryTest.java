@@ -0,0 +1,59 @@
+package com.eralp.configuration.cache;
+
+import com.eralp.configuration.history.EntityChange;
+import com.eralp.configuration.history.EntityHistoryWriter;
+import com.eralp.entities.User;
+import com.eralp.entities.enums.Role;
+import com.eralp.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks that {@link SoftDeleteAspect} records the history of the rows a bulk delete changed, and of no other ids.
+ *
+ * @author Eralp Nitelik
+ */
+@SpringBootTest(properties = "history.enabled=true")
+@ActiveProfiles("test")
+class SoftDeleteHistoryTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private EntityHistoryWriter entityHistoryWriter;
+
+    @Test
+    void recordsOnlyTheUsersThatWereActive() {
+        String deleted = save("history-deleted@eralp.com");
+        String active = save("history-active@eralp.com");
+        userRepository.softDeleteById(deleted);
+        clearInvocations(entityHistoryWriter);
+
+        int updated = userRepository.softDeleteAllById(List.of(deleted, active, "missing"));
+
+        assertThat(updated).isEqualTo(2);
+        ArgumentCaptor<EntityChange> change = ArgumentCaptor.forClass(EntityChange.class);
+        verify(entityHistoryWriter).record(change.capture());
+        assertThat(change.getValue().entityId()).isEqualTo(active);
+        assertThat(change.getValue().operation()).isEqualTo(EntityChange.Operation.SOFT_DELETE);
+    }
+
+    private String save(String email) {
+        return userRepository.save(User.builder()
+                .email(email)
+                .password("password")
+                .roles(Set.of(Role.USER))
+                .build()).getId();
+    }
+}
@@ -0,0 +1,74 @@
+package com.eralp.configuration.cache;
+
+import com.eralp.configuration.invalidation.InvalidationBus;
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.entities.Token;
+import com.eralp.entities.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the events that {@link UserChangePublisher} publishes for changed entities.
+ *
+ * @author Eralp Nitelik
+ */
+class UserChangePublisherTest {
+    private final InvalidationBus invalidationBus = mock(InvalidationBus.class);
+    private final UserChangePublisher publisher = new UserChangePublisher(mock(EntityManagerFactory.class), invalidationBus);
+
+    @Test
+    void publishesUpdatedUsers() {
+        PostUpdateEvent event = mock(PostUpdateEvent.class);
+        EntityPersister persister = persisterOf(User.class);
+        when(event.getPersister()).thenReturn(persister);
+        when(event.getId()).thenReturn("user");
+
+        publisher.onPostUpdate(event);
+
+        verify(invalidationBus).publish(argThat(published ->
+                published.type() == InvalidationEvent.Type.USER_STATE_CHANGED && published.key().equals("user")));
+    }
+
+    @Test
+    void publishesDeletedUsers() {
+        PostDeleteEvent event = mock(PostDeleteEvent.class);
+        EntityPersister persister = persisterOf(User.class);
+        when(event.getPersister()).thenReturn(persister);
+        when(event.getId()).thenReturn("user");
+
+        publisher.onPostDelete(event);
+
+        verify(invalidationBus).publish(argThat(published -> published.key().equals("user")));
+    }
+
+    @Test
+    void ignoresOtherEntities() {
+        PostUpdateEvent event = mock(PostUpdateEvent.class);
+        EntityPersister persister = persisterOf(Token.class);
+        when(event.getPersister()).thenReturn(persister);
+        when(event.getId()).thenReturn("token");
+
+        publisher.onPostUpdate(event);
+
+        verify(invalidationBus, never()).publish(any());
+        assertThat(publisher.requiresPostCommitHandling(persister)).isFalse();
+    }
+
+    private static EntityPersister persisterOf(Class<?> entityType) {
+        EntityPersister persister = mock(EntityPersister.class);
+        doReturn(entityType).when(persister).getMappedClass();
+        return persister;
+    }
+}
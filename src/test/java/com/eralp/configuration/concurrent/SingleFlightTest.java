@@ -0,0 +1,127 @@
+package com.eralp.configuration.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that concurrent loads of a key are shared, and that nothing is kept after they complete.
+ *
+ * @author Eralp Nitelik
+ */
+class SingleFlightTest {
+    private static final int CALLERS = 8;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final CountDownLatch joined = new CountDownLatch(CALLERS - 1);
+    private final SingleFlight<String, Object> singleFlight = new SingleFlight<>(joined::countDown);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object value = new Object();
+
+        List<Future<Object>> results = callConcurrently(() -> {
+            loads.incrementAndGet();
+            await(release);
+            return value;
+        });
+        assertThat(joined.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+
+        for (Future<Object> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(value);
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void concurrentCallersReceiveTheSameException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("Load failed");
+
+        List<Future<Object>> results = callConcurrently(() -> {
+            await(release);
+            throw failure;
+        });
+        assertThat(joined.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+
+        for (Future<Object> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().isSameAs(failure);
+        }
+    }
+
+    @Test
+    void completedLoadsAreNotReused() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(singleFlight.execute("key", loads::incrementAndGet)).isEqualTo(1);
+        assertThat(singleFlight.execute("key", loads::incrementAndGet)).isEqualTo(2);
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("Load failed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(singleFlight.execute("key", loads::incrementAndGet)).isEqualTo(3);
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        AtomicInteger loads = new AtomicInteger();
+        SingleFlight<String, Integer> outer = new SingleFlight<>(joined::countDown);
+
+        // The inner load of another key runs while the outer one is in flight.
+        int value = outer.execute("outer", () -> outer.execute("inner", loads::incrementAndGet) + loads.incrementAndGet());
+
+        assertThat(value).isEqualTo(3);
+        assertThat(joined.getCount()).isEqualTo(CALLERS - 1);
+    }
+
+    /**
+     * Starts one caller that runs the loader and waits until it does, then starts the others.
+     */
+    private List<Future<Object>> callConcurrently(Supplier<Object> loader) throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        List<Future<Object>> results = new ArrayList<>(CALLERS);
+        results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+            loading.countDown();
+            return loader.get();
+        })));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("key", loader)));
+        }
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Load was not released");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        }
+    }
+}
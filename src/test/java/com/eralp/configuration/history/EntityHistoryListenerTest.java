@@ -0,0 +1,84 @@
+package com.eralp.configuration.history;
+
+import com.eralp.entities.Token;
+import com.eralp.entities.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks the changes that the {@link EntityHistoryListener} records for bulk deletes.
+ *
+ * @author Eralp Nitelik
+ */
+class EntityHistoryListenerTest {
+    private final EntityHistoryWriter entityHistoryWriter = mock(EntityHistoryWriter.class);
+    private final AuditorAware<String> auditorAware = () -> Optional.of("admin");
+    private final EntityHistoryListener listener = new EntityHistoryListener(
+            mock(EntityManagerFactory.class), entityHistoryWriter, auditorAware);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void recordsASoftDeleteForEveryGivenId() {
+        listener.recordBulkDelete(User.class, List.of("first", "second"), true);
+
+        ArgumentCaptor<EntityChange> changes = ArgumentCaptor.forClass(EntityChange.class);
+        verify(entityHistoryWriter, times(2)).record(changes.capture());
+        assertThat(changes.getAllValues()).extracting(EntityChange::entityId).containsExactly("first", "second");
+        assertThat(changes.getAllValues()).allSatisfy(change -> {
+            assertThat(change.entityType()).isEqualTo("User");
+            assertThat(change.operation()).isEqualTo(EntityChange.Operation.SOFT_DELETE);
+            assertThat(change.changes()).containsExactly(new EntityChange.FieldChange("state", "ACTIVE", "DELETED"));
+            assertThat(change.changedBy()).isEqualTo("admin");
+        });
+    }
+
+    @Test
+    void recordsHardDeletesWithoutFieldChanges() {
+        listener.recordBulkDelete(User.class, List.of("user"), false);
+
+        ArgumentCaptor<EntityChange> change = ArgumentCaptor.forClass(EntityChange.class);
+        verify(entityHistoryWriter).record(change.capture());
+        assertThat(change.getValue().operation()).isEqualTo(EntityChange.Operation.DELETE);
+        assertThat(change.getValue().changes()).isEmpty();
+    }
+
+    @Test
+    void ignoresEntitiesWithoutHistory() {
+        listener.recordBulkDelete(Token.class, List.of("token"), true);
+
+        assertThat(listener.isTracked(Token.class)).isFalse();
+        verify(entityHistoryWriter, never()).record(any());
+    }
+
+    @Test
+    void recordsAfterTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.recordBulkDelete(User.class, List.of("user"), true);
+
+        verify(entityHistoryWriter, never()).record(any());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(entityHistoryWriter).record(any());
+    }
+}
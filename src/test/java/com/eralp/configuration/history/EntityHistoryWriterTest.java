@@ -0,0 +1,103 @@
+package com.eralp.configuration.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks how the {@link EntityHistoryWriter} batches, drops and drains entity changes.
+ *
+ * @author Eralp Nitelik
+ */
+class EntityHistoryWriterTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    @Test
+    void writesQueuedChangesInBatches() {
+        recordBatchSizes();
+        EntityHistoryWriter writer = writer(10, 2);
+        for (int i = 0; i < 5; i++) {
+            assertThat(writer.record(change(i))).isTrue();
+        }
+
+        writer.start();
+        writer.stop();
+
+        assertThat(batchSizes).containsExactly(2, 2, 1);
+        assertThat(dropped()).isZero();
+    }
+
+    @Test
+    void writesChangesThatWereQueuedBeforeStop() {
+        recordBatchSizes();
+        EntityHistoryWriter writer = writer(100, 200);
+        writer.start();
+        for (int i = 0; i < 50; i++) {
+            writer.record(change(i));
+        }
+
+        writer.stop();
+
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(50);
+        assertThat(writer.isRunning()).isFalse();
+    }
+
+    @Test
+    void dropsChangesWhenTheQueueIsFull() {
+        EntityHistoryWriter writer = writer(1, 200);
+
+        assertThat(writer.record(change(1))).isTrue();
+        assertThat(writer.record(change(2))).isFalse();
+        assertThat(dropped()).isEqualTo(1);
+    }
+
+    @Test
+    void countsFailedBatchesAsDropped() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        EntityHistoryWriter writer = writer(10, 200);
+        writer.record(change(1));
+        writer.record(change(2));
+
+        writer.start();
+        writer.stop();
+
+        assertThat(dropped()).isEqualTo(2);
+    }
+
+    private void recordBatchSizes() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<?> rows = invocation.getArgument(1);
+            batchSizes.add(rows.size());
+            return new int[rows.size()];
+        });
+    }
+
+    private EntityHistoryWriter writer(int queueCapacity, int batchSize) {
+        return new EntityHistoryWriter(jdbcTemplate, new ObjectMapper(), meterRegistry,
+                queueCapacity, batchSize, Duration.ofMillis(1), Duration.ofMillis(50));
+    }
+
+    private double dropped() {
+        return meterRegistry.counter("history.dropped").count();
+    }
+
+    private static EntityChange change(int id) {
+        return new EntityChange("User", String.valueOf(id), EntityChange.Operation.UPDATE,
+                List.of(new EntityChange.FieldChange("email", "old@eralp.com", "new@eralp.com")), "admin", Instant.now());
+    }
+}
@@ -0,0 +1,83 @@
+package com.eralp.configuration.invalidation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks when the buses deliver their events. The PostgreSQL bus is only checked up to the notification it sends,
+ * as LISTEN/NOTIFY is not available on the in-memory database.
+ *
+ * @author Eralp Nitelik
+ */
+class InvalidationBusTest {
+    private final InvalidationDispatcher dispatcher = mock(InvalidationDispatcher.class);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void localBusDeliversImmediatelyWithoutTransaction() {
+        InvalidationEvent event = InvalidationEvent.tokensRevoked("user");
+
+        new LocalInvalidationBus(dispatcher).publish(event);
+
+        verify(dispatcher).dispatch(event);
+    }
+
+    @Test
+    void localBusDeliversAfterCommit() {
+        InvalidationEvent event = InvalidationEvent.tokensRevoked("user");
+        TransactionSynchronizationManager.initSynchronization();
+
+        new LocalInvalidationBus(dispatcher).publish(event);
+        verify(dispatcher, never()).dispatch(event);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(dispatcher).dispatch(event);
+    }
+
+    @Test
+    void localBusDropsEventsOfRolledBackTransactions() {
+        InvalidationEvent event = InvalidationEvent.tokensRevoked("user");
+        TransactionSynchronizationManager.initSynchronization();
+
+        new LocalInvalidationBus(dispatcher).publish(event);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(dispatcher, never()).dispatch(event);
+    }
+
+    @Test
+    void postgresBusNotifiesTheEncodedEvent() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        PostgresInvalidationBus bus = new PostgresInvalidationBus(jdbcTemplate, mock(DataSource.class), dispatcher,
+                "invalidation", Duration.ofMillis(500));
+        InvalidationEvent event = InvalidationEvent.tokenLoggedOut("digest");
+
+        bus.publish(event);
+
+        verify(jdbcTemplate).queryForObject("SELECT pg_notify(?, ?)", Object.class, "invalidation", event.encode());
+    }
+
+    @Test
+    void postgresBusRejectsUnsafeChannels() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new PostgresInvalidationBus(mock(JdbcTemplate.class),
+                mock(DataSource.class), dispatcher, "invalidation; DROP TABLE users", Duration.ofMillis(500)));
+    }
+}
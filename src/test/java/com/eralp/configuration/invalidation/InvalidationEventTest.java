@@ -0,0 +1,76 @@
+package com.eralp.configuration.invalidation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Checks that events survive the encoding that is sent between nodes.
+ *
+ * @author Eralp Nitelik
+ */
+class InvalidationEventTest {
+    @Test
+    void decodesEncodedEvents() {
+        List<InvalidationEvent> events = List.of(
+                InvalidationEvent.tokenLoggedOut("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08"),
+                InvalidationEvent.tokensRevoked("4b0e8f52-2c31-4d7a-9a0b-7a1c0f3e5d21"),
+                InvalidationEvent.userStateChanged(InvalidationEvent.ALL_KEYS),
+                InvalidationEvent.apiKeysChanged(),
+                InvalidationEvent.all()
+        );
+        for (InvalidationEvent event : events) {
+            assertThat(InvalidationEvent.decode(event.encode())).isEqualTo(event);
+        }
+    }
+
+    @Test
+    void keepsSeparatorsInKeys() {
+        InvalidationEvent event = new InvalidationEvent(InvalidationEvent.Type.TOKENS_REVOKED, "a:b:c", 1_700_000_000L);
+
+        assertThat(event.encode()).isEqualTo("TOKENS_REVOKED:1700000000:a:b:c");
+        assertThat(InvalidationEvent.decode(event.encode())).isEqualTo(event);
+    }
+
+    @Test
+    void carriesTheUsersOfABatchInOneEvent() {
+        List<String> userIds = IntStream.range(0, InvalidationEvent.MAX_KEYS)
+                .mapToObj(i -> "4b0e8f52-2c31-4d7a-9a0b-7a1c0f3e" + String.format("%04d", i))
+                .toList();
+        InvalidationEvent event = InvalidationEvent.tokensRevoked(userIds);
+
+        assertThat(InvalidationEvent.decode(event.encode()).keys()).isEqualTo(userIds);
+        // PostgreSQL rejects notifications with payloads of 8000 bytes or more.
+        assertThat(event.encode().getBytes()).hasSizeLessThan(8000);
+        assertThat(InvalidationEvent.tokensRevoked("user").keys()).containsExactly("user");
+    }
+
+    @Test
+    void rejectsBatchesOutsideTheKeyLimit() {
+        List<String> tooMany = IntStream.rangeClosed(0, InvalidationEvent.MAX_KEYS).mapToObj(String::valueOf).toList();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> InvalidationEvent.tokensRevoked(List.of()));
+        assertThatIllegalArgumentException().isThrownBy(() -> InvalidationEvent.tokensRevoked(tooMany));
+    }
+
+    @Test
+    void stampsEventsWithTheCurrentSecond() {
+        long before = System.currentTimeMillis() / 1000;
+        InvalidationEvent event = InvalidationEvent.tokensRevoked("user");
+        long after = System.currentTimeMillis() / 1000;
+
+        assertThat(event.occurredAt()).isBetween(before, after);
+    }
+
+    @Test
+    void rejectsInvalidPayloads() {
+        for (String payload : List.of("", "TOKENS_REVOKED", "TOKENS_REVOKED:user", "UNKNOWN:1700000000:user",
+                "TOKENS_REVOKED:soon:user")) {
+            assertThatIllegalArgumentException().isThrownBy(() -> InvalidationEvent.decode(payload));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.eralp.configuration.locale;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the messages that {@link LocaleSelector} resolves for supported, unsupported and unknown codes.
+ *
+ * @author Eralp Nitelik
+ */
+class LocaleSelectorTest {
+    private static final String CODE = "exception.authentication.not_logged_in";
+
+    @Test
+    void resolvesMessagesOfSupportedLocales() {
+        assertThat(LocaleSelector.withCode(CODE, new Locale("tr"))).isEqualTo("Giriş yapmadan ulaşılamaz!");
+    }
+
+    @Test
+    void resolvesMessagesOfOtherLocalesFromTheDefaultBundle() {
+        assertThat(LocaleSelector.withCode(CODE, Locale.JAPANESE)).isEqualTo("Authorization required to access this resource!");
+    }
+
+    @Test
+    void returnsTheCodeOfMissingMessages() {
+        assertThat(LocaleSelector.withCode("missing.code", new Locale("tr"))).isEqualTo("missing.code");
+        assertThat(LocaleSelector.withCode("missing.code", Locale.JAPANESE)).isEqualTo("missing.code");
+    }
+}
@@ -0,0 +1,154 @@
+package com.eralp.configuration.security.apikey;
+
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.entities.enums.Role;
+import com.eralp.repositories.ApiKeyRepository;
+import com.eralp.repositories.projections.ApiKeyCredential;
+import com.eralp.repositories.projections.UserPrincipal;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the generation and verification of API keys against the in-memory index.
+ *
+ * @author Eralp Nitelik
+ */
+class ApiKeyIndexTest {
+    private static final String SECRET = "7A24432646294A404E635266556A586E3272357538782F413F4428472B4B6250";
+
+    private final ApiKeyHasher apiKeyHasher = new ApiKeyHasher(SECRET);
+    private final ApiKeyRepository apiKeyRepository = mock(ApiKeyRepository.class);
+    /*
+        Reloads are queued and run explicitly, instead of on the background thread.
+     */
+    private final Queue<Runnable> reloads = new ArrayDeque<>();
+    private final ApiKeyIndex apiKeyIndex = new ApiKeyIndex(apiKeyRepository, apiKeyHasher, reloads::add);
+
+    @Test
+    void generatedKeysCarryTheirPrefix() {
+        String prefix = apiKeyHasher.generatePrefix();
+        String key = apiKeyHasher.generateKey(prefix);
+
+        assertThat(ApiKeyHasher.prefixOf(key)).isEqualTo(prefix);
+        assertThat(ApiKeyHasher.prefixOf("Bearer token")).isNull();
+        assertThat(ApiKeyHasher.prefixOf("sk_no-separator")).isNull();
+    }
+
+    @Test
+    void digestsDependOnTheSecret() {
+        String key = apiKeyHasher.generateKey(apiKeyHasher.generatePrefix());
+
+        assertThat(apiKeyHasher.matches(key, apiKeyHasher.digest(key))).isTrue();
+        assertThat(new ApiKeyHasher("another secret").matches(key, apiKeyHasher.digest(key))).isFalse();
+    }
+
+    @Test
+    void verifiesStoredKeys() {
+        String prefix = apiKeyHasher.generatePrefix();
+        String key = apiKeyHasher.generateKey(prefix);
+        store(prefix, key);
+
+        UserPrincipal principal = apiKeyIndex.verify(key);
+
+        assertThat(principal).isNotNull();
+        assertThat(principal.email()).isEqualTo("service@eralp.com");
+    }
+
+    @Test
+    void rejectsUnknownAndTamperedKeys() {
+        String prefix = apiKeyHasher.generatePrefix();
+        String key = apiKeyHasher.generateKey(prefix);
+        store(prefix, key);
+
+        // Same prefix with another secret.
+        assertThat(apiKeyIndex.verify(apiKeyHasher.generateKey(prefix))).isNull();
+        assertThat(apiKeyIndex.verify(apiKeyHasher.generateKey(apiKeyHasher.generatePrefix()))).isNull();
+        assertThat(apiKeyIndex.verify("not an api key")).isNull();
+    }
+
+    @Test
+    void reloadsWhenKeysChange() {
+        String prefix = apiKeyHasher.generatePrefix();
+        String key = apiKeyHasher.generateKey(prefix);
+        store(prefix, key);
+
+        when(apiKeyRepository.findAllUsableCredentials()).thenReturn(List.of());
+        apiKeyIndex.onInvalidation(InvalidationEvent.apiKeysChanged());
+        runReloads();
+
+        assertThat(apiKeyIndex.verify(key)).isNull();
+    }
+
+    @Test
+    void coalescesPendingReloads() {
+        apiKeyIndex.onInvalidation(InvalidationEvent.apiKeysChanged());
+        apiKeyIndex.onInvalidation(InvalidationEvent.all());
+        apiKeyIndex.onInvalidation(InvalidationEvent.apiKeysChanged());
+
+        assertThat(reloads).hasSize(1);
+        runReloads();
+        verify(apiKeyRepository).findAllUsableCredentials();
+
+        apiKeyIndex.onInvalidation(InvalidationEvent.apiKeysChanged());
+        assertThat(reloads).hasSize(1);
+    }
+
+    @Test
+    void evictsOnlyTheKeysOfAChangedUser() {
+        String prefix = apiKeyHasher.generatePrefix();
+        String key = apiKeyHasher.generateKey(prefix);
+        String otherPrefix = apiKeyHasher.generatePrefix();
+        String otherKey = apiKeyHasher.generateKey(otherPrefix);
+        when(apiKeyRepository.findAllUsableCredentials()).thenReturn(List.of(
+                credential(prefix, key, "service-id"),
+                credential(otherPrefix, otherKey, "other-id")));
+        apiKeyIndex.reload();
+
+        apiKeyIndex.onInvalidation(InvalidationEvent.userStateChanged("service-id"));
+
+        // Evicted before the reload runs.
+        assertThat(apiKeyIndex.verify(key)).isNull();
+        assertThat(apiKeyIndex.verify(otherKey)).isNotNull();
+        when(apiKeyRepository.findUsableCredentialsByUserId("service-id")).thenReturn(List.of(credential(prefix, key, "service-id")));
+        runReloads();
+        assertThat(apiKeyIndex.verify(key)).isNotNull();
+        verify(apiKeyRepository).findAllUsableCredentials();
+    }
+
+    @Test
+    void keepsEvictedKeysOfDisabledUsersOut() {
+        String prefix = apiKeyHasher.generatePrefix();
+        String key = apiKeyHasher.generateKey(prefix);
+        store(prefix, key);
+
+        apiKeyIndex.onInvalidation(InvalidationEvent.userStateChanged("service-id"));
+        runReloads();
+
+        assertThat(apiKeyIndex.verify(key)).isNull();
+    }
+
+    private void runReloads() {
+        while (!reloads.isEmpty()) {
+            reloads.poll().run();
+        }
+    }
+
+    private ApiKeyCredential credential(String prefix, String key, String userId) {
+        return new ApiKeyCredential(prefix, apiKeyHasher.digestHex(key), userId, userId + "@eralp.com", Set.of(Role.USER));
+    }
+
+    private void store(String prefix, String key) {
+        when(apiKeyRepository.findAllUsableCredentials()).thenReturn(List.of(new ApiKeyCredential(
+                prefix, apiKeyHasher.digestHex(key), "service-id", "service@eralp.com", Set.of(Role.USER))));
+        assertThat(apiKeyIndex.reload()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.eralp.configuration.security.authorization;
+
+import com.eralp.entities.AuthorizationRule;
+import com.eralp.entities.converter.RoleMask;
+import com.eralp.entities.enums.Role;
+import com.eralp.repositories.AuthorizationRuleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks how {@link AuthorizationRules} matches requests and seeds the default rules.
+ *
+ * @author Eralp Nitelik
+ */
+class AuthorizationRulesTest {
+    private final AuthorizationRuleRepository authorizationRuleRepository = mock(AuthorizationRuleRepository.class);
+    private final AuthorizationRules authorizationRules = new AuthorizationRules(authorizationRuleRepository);
+
+    @ParameterizedTest
+    @ValueSource(strings = {"GET", "POST", "PUT", "DELETE"})
+    void matchesRequestsOfEveryMethodByPath(String method) {
+        assertThat(authorizationRules.decisionFor(request(method, "/test/admin", null)))
+                .isEqualTo(RoleMask.of(Set.of(Role.ADMIN)));
+        assertThat(authorizationRules.isPermitAll(request(method, "/auth/login", null))).isTrue();
+    }
+
+    @Test
+    void matchesThePathInfoBelowTheServletPath() {
+        assertThat(authorizationRules.decisionFor(request("GET", "/admin", "/authorization-rules/reload")))
+                .isEqualTo(RoleMask.of(Set.of(Role.ADMIN)));
+    }
+
+    @Test
+    void permitsOnlyTheHealthProbesBelowTheActuator() {
+        assertThat(authorizationRules.isPermitAll(request("GET", "/actuator/health/readiness", null))).isTrue();
+        assertThat(authorizationRules.isPermitAll(request("GET", "/actuator/health/liveness", null))).isTrue();
+        assertThat(authorizationRules.decisionFor(request("GET", "/actuator/health", null)))
+                .isEqualTo(RoleMask.of(Set.of(Role.ADMIN)));
+        assertThat(authorizationRules.decisionFor(request("GET", "/actuator/health/db", null)))
+                .isEqualTo(RoleMask.of(Set.of(Role.ADMIN)));
+    }
+
+    @Test
+    void seedsOnlyTheMissingDefaultRules() {
+        Set<String> existing = AuthorizationRules.defaultRules().stream()
+                .map(AuthorizationRule::getPattern)
+                .filter(pattern -> !pattern.equals("/test"))
+                .collect(Collectors.toSet());
+        when(authorizationRuleRepository.findAllPatterns()).thenReturn(existing);
+
+        authorizationRules.initialize();
+
+        verify(authorizationRuleRepository, times(1)).save(any());
+        verify(authorizationRuleRepository).save(argThat(rule -> rule.getPattern().equals("/test")));
+    }
+
+    @Test
+    void keepsSeedingWhenAnotherNodeInsertedARule() {
+        when(authorizationRuleRepository.findAllPatterns()).thenReturn(Set.of());
+        when(authorizationRuleRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate pattern"));
+
+        authorizationRules.initialize();
+
+        verify(authorizationRuleRepository, times(AuthorizationRules.defaultRules().size())).save(any());
+        verify(authorizationRuleRepository, never()).saveAll(any());
+        verify(authorizationRuleRepository).findAllActive();
+    }
+
+    private static MockHttpServletRequest request(String method, String servletPath, String pathInfo) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, servletPath + (pathInfo == null ? "" : pathInfo));
+        request.setServletPath(servletPath);
+        request.setPathInfo(pathInfo);
+        return request;
+    }
+}
@@ -0,0 +1,112 @@
+package com.eralp.configuration.security.authorization;
+
+import com.eralp.entities.AuthorizationRule;
+import com.eralp.entities.converter.RoleMask;
+import com.eralp.entities.enums.Role;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks which rule of a {@link PathRuleTrie} decides a path.
+ *
+ * @author Eralp Nitelik
+ */
+class PathRuleTrieTest {
+    private static final int ADMIN = RoleMask.of(Set.of(Role.ADMIN));
+    private static final int MANAGER = RoleMask.of(Set.of(Role.MANAGER));
+    private static final int USER = RoleMask.of(Set.of(Role.USER));
+
+    @Test
+    void matchesLiteralPaths() {
+        PathRuleTrie trie = compile(rule("/test/admin", Role.ADMIN), permitAll("/test"));
+
+        assertThat(trie.decisionFor("/test/admin")).isEqualTo(ADMIN);
+        assertThat(trie.decisionFor("/test")).isEqualTo(PathRuleTrie.PERMIT_ALL);
+        assertThat(trie.decisionFor("/test/other")).isEqualTo(PathRuleTrie.NO_RULE);
+        assertThat(trie.decisionFor("/other")).isEqualTo(PathRuleTrie.NO_RULE);
+    }
+
+    @Test
+    void prefersLiteralSegmentsOverAnySegment() {
+        PathRuleTrie trie = compile(rule("/users/*", Role.ADMIN), rule("/users/me", Role.USER));
+
+        assertThat(trie.decisionFor("/users/me")).isEqualTo(USER);
+        assertThat(trie.decisionFor("/users/42")).isEqualTo(ADMIN);
+        assertThat(trie.decisionFor("/users/42/tokens")).isEqualTo(PathRuleTrie.NO_RULE);
+    }
+
+    @Test
+    void prefersWholePathMatchesOverAnyRemaining() {
+        PathRuleTrie trie = compile(rule("/admin/**", Role.ADMIN), permitAll("/admin/health"));
+
+        assertThat(trie.decisionFor("/admin/health")).isEqualTo(PathRuleTrie.PERMIT_ALL);
+        assertThat(trie.decisionFor("/admin/health/details")).isEqualTo(ADMIN);
+        assertThat(trie.decisionFor("/admin")).isEqualTo(ADMIN);
+    }
+
+    @Test
+    void prefersTheDeepestAnyRemaining() {
+        PathRuleTrie trie = compile(rule("/**", Role.USER), rule("/api/**", Role.MANAGER), rule("/api/v1/**", Role.ADMIN));
+
+        assertThat(trie.decisionFor("/api/v1/users/42")).isEqualTo(ADMIN);
+        assertThat(trie.decisionFor("/api/v2/users")).isEqualTo(MANAGER);
+        assertThat(trie.decisionFor("/other")).isEqualTo(USER);
+        assertThat(trie.decisionFor("/")).isEqualTo(USER);
+    }
+
+    @Test
+    void fallsBackToAnyRemainingWhenLiteralBranchEnds() {
+        PathRuleTrie trie = compile(rule("/**", Role.USER), rule("/a/b/c", Role.ADMIN));
+
+        assertThat(trie.decisionFor("/a/b/c")).isEqualTo(ADMIN);
+        assertThat(trie.decisionFor("/a/b/d")).isEqualTo(USER);
+        assertThat(trie.decisionFor("/a/b")).isEqualTo(USER);
+    }
+
+    @Test
+    void doesNotBacktrackFromLiteralSegments() {
+        PathRuleTrie trie = compile(rule("/a/b/c", Role.ADMIN), rule("/a/*/d", Role.USER));
+
+        assertThat(trie.decisionFor("/a/x/d")).isEqualTo(USER);
+        assertThat(trie.decisionFor("/a/b/d")).isEqualTo(PathRuleTrie.NO_RULE);
+    }
+
+    @Test
+    void encodesDecisions() {
+        PathRuleTrie trie = compile(permitAll("/open"), rule("/authenticated"), rule("/staff", Role.ADMIN, Role.MANAGER));
+
+        assertThat(trie.decisionFor("/open")).isEqualTo(PathRuleTrie.PERMIT_ALL);
+        assertThat(trie.decisionFor("/authenticated")).isEqualTo(PathRuleTrie.AUTHENTICATED);
+        assertThat(trie.decisionFor("/staff")).isEqualTo(ADMIN | MANAGER);
+    }
+
+    @Test
+    void replacesEarlierRulesWithTheSamePattern() {
+        PathRuleTrie trie = compile(rule("/reports/**", Role.USER), rule("/reports/**", Role.ADMIN));
+
+        assertThat(trie.decisionFor("/reports/daily")).isEqualTo(ADMIN);
+    }
+
+    @Test
+    void rejectsAnyRemainingBeforeTheLastSegment() {
+        assertThatThrownBy(() -> compile(rule("/**/admin", Role.ADMIN)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static PathRuleTrie compile(AuthorizationRule... rules) {
+        return PathRuleTrie.compile(List.of(rules));
+    }
+
+    private static AuthorizationRule permitAll(String pattern) {
+        return AuthorizationRule.builder().pattern(pattern).permitAll(true).roles(Set.of()).build();
+    }
+
+    private static AuthorizationRule rule(String pattern, Role... roles) {
+        return AuthorizationRule.builder().pattern(pattern).permitAll(false).roles(Set.of(roles)).build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.eralp.configuration.security.degraded;
+
+import com.eralp.exceptions.custom.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the state machine of the {@link DatabaseCircuitBreaker}.
+ *
+ * @author Eralp Nitelik
+ */
+class DatabaseCircuitBreakerTest {
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final Supplier<String> FAILING = () -> {
+        throw new DataAccessResourceFailureException("Database is down");
+    };
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    @Test
+    void staysClosedBelowTheFailureThreshold() {
+        DatabaseCircuitBreaker breaker = breaker(Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            assertThat(breaker.call(FAILING, () -> "fallback")).isEqualTo("fallback");
+        }
+
+        assertThat(breaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.CLOSED);
+        assertThat(breaker.getConsecutiveFailures()).isEqualTo(FAILURE_THRESHOLD - 1);
+        assertThat(breaker.call(this::lookup, () -> "fallback")).isEqualTo("database");
+    }
+
+    @Test
+    void successResetsTheFailures() {
+        DatabaseCircuitBreaker breaker = breaker(Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            breaker.call(FAILING, () -> "fallback");
+        }
+        breaker.call(this::lookup, () -> "fallback");
+        breaker.call(FAILING, () -> "fallback");
+
+        assertThat(breaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.CLOSED);
+        assertThat(breaker.getConsecutiveFailures()).isEqualTo(1);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        DatabaseCircuitBreaker breaker = breaker(Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            breaker.call(FAILING, () -> "fallback");
+        }
+
+        assertThat(breaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.OPEN);
+        assertThat(breaker.call(this::lookup, () -> "fallback")).isEqualTo("fallback");
+        assertThat(lookups).hasValue(0);
+        assertThatThrownBy(breaker::ensureWritable).isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    void countsSlowLookupsAsFailures() {
+        DatabaseCircuitBreaker breaker = breaker(Duration.ofMinutes(1), Duration.ZERO);
+
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            // The result of a slow lookup is still used.
+            assertThat(breaker.call(this::lookup, () -> "fallback")).isEqualTo("database");
+        }
+
+        assertThat(breaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void closesAfterSuccessfulTrial() {
+        DatabaseCircuitBreaker breaker = openBreaker();
+
+        assertThatNoException().isThrownBy(breaker::ensureWritable);
+        assertThat(breaker.call(this::lookup, () -> "fallback")).isEqualTo("database");
+
+        assertThat(breaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.CLOSED);
+        assertThat(breaker.getConsecutiveFailures()).isZero();
+    }
+
+    @Test
+    void opensAgainAfterFailedTrial() {
+        DatabaseCircuitBreaker breaker = openBreaker();
+
+        assertThat(breaker.call(FAILING, () -> "fallback")).isEqualTo("fallback");
+
+        assertThat(breaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void propagatesErrorsThatAreNotDatabaseErrors() {
+        DatabaseCircuitBreaker breaker = breaker(Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        assertThatIllegalStateException().isThrownBy(() -> breaker.call(() -> {
+            throw new IllegalStateException("Not a database error");
+        }, () -> "fallback"));
+        assertThat(breaker.getConsecutiveFailures()).isZero();
+    }
+
+    /**
+     * @return a breaker that has just opened and lets a trial through right away
+     */
+    private DatabaseCircuitBreaker openBreaker() {
+        DatabaseCircuitBreaker breaker = breaker(Duration.ZERO, Duration.ofMinutes(1));
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            breaker.call(FAILING, () -> "fallback");
+        }
+        assertThat(breaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.OPEN);
+        return breaker;
+    }
+
+    private DatabaseCircuitBreaker breaker(Duration openDuration, Duration slowCallThreshold) {
+        return new DatabaseCircuitBreaker(new SimpleMeterRegistry(), FAILURE_THRESHOLD, openDuration, slowCallThreshold);
+    }
+
+    private String lookup() {
+        lookups.incrementAndGet();
+        return "database";
+    }
+}
@@ -0,0 +1,49 @@
+package com.eralp.configuration.security.degraded;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.HealthEndpointGroup;
+import org.springframework.boot.actuate.health.HealthEndpointGroups;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the readiness probe keeps a degraded node in rotation and can be reached without authentication.
+ *
+ * @author Eralp Nitelik
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class HealthProbeTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HealthEndpointGroups healthEndpointGroups;
+
+    @Test
+    void leavesTheDatabaseOutOfReadiness() {
+        HealthEndpointGroup readiness = healthEndpointGroups.get("readiness");
+
+        assertThat(readiness.isMember("degradedMode")).isTrue();
+        assertThat(readiness.isMember("db")).isFalse();
+        assertThat(readiness.getHttpCodeStatusMapper().getStatusCode(DegradedModeHealthIndicator.DEGRADED)).isEqualTo(200);
+    }
+
+    @Test
+    void exposesProbesWithoutAuthentication() throws Exception {
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health/liveness"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isUnauthorized());
+    }
+}
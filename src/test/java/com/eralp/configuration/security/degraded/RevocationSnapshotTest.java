@@ -0,0 +1,65 @@
+package com.eralp.configuration.security.degraded;
+
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.configuration.metrics.RejectionReason;
+import com.eralp.repositories.TokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks the tokens that the {@link RevocationSnapshot} rejects in degraded mode.
+ *
+ * @author Eralp Nitelik
+ */
+class RevocationSnapshotTest {
+    private static final long REVOKED_AT = 1_700_000_000L;
+
+    private final RevocationSnapshot revocationSnapshot = new RevocationSnapshot(
+            mock(TokenRepository.class),
+            new DatabaseCircuitBreaker(new SimpleMeterRegistry(), 5, Duration.ofSeconds(10), Duration.ofSeconds(2)),
+            true,
+            Duration.ofDays(1)
+    );
+
+    @Test
+    void rejectsLoggedOutTokens() {
+        revocationSnapshot.onInvalidation(InvalidationEvent.tokenLoggedOut("digest"));
+
+        assertThat(revocationSnapshot.rejectionOf("digest", "user", REVOKED_AT)).isEqualTo(RejectionReason.REVOKED);
+        assertThat(revocationSnapshot.rejectionOf("other", "user", REVOKED_AT)).isNull();
+    }
+
+    @Test
+    void rejectsTokensIssuedBeforeTheRevocationHappened() {
+        revocationSnapshot.onInvalidation(revoked("user", REVOKED_AT));
+
+        assertThat(revocationSnapshot.rejectionOf("digest", "user", REVOKED_AT - 1)).isEqualTo(RejectionReason.REVOKED);
+        assertThat(revocationSnapshot.rejectionOf("digest", "other", REVOKED_AT - 1)).isNull();
+    }
+
+    @Test
+    void acceptsTokensIssuedAfterTheRevocationHappenedEvenIfTheEventArrivesLater() {
+        // The event is received long after it occurred, the token of the login that caused it stays usable.
+        revocationSnapshot.onInvalidation(revoked("user", REVOKED_AT));
+
+        assertThat(revocationSnapshot.rejectionOf("digest", "user", REVOKED_AT)).isNull();
+        assertThat(revocationSnapshot.rejectionOf("digest", "user", REVOKED_AT + 1)).isNull();
+    }
+
+    @Test
+    void keepsTheLatestRevocationOfAUser() {
+        revocationSnapshot.onInvalidation(revoked("user", REVOKED_AT));
+        revocationSnapshot.onInvalidation(revoked("user", REVOKED_AT - 60));
+
+        assertThat(revocationSnapshot.rejectionOf("digest", "user", REVOKED_AT - 1)).isEqualTo(RejectionReason.REVOKED);
+    }
+
+    private static InvalidationEvent revoked(String userId, long occurredAt) {
+        return new InvalidationEvent(InvalidationEvent.Type.TOKENS_REVOKED, userId, occurredAt);
+    }
+}
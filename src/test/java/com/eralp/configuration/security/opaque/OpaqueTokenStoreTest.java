@@ -0,0 +1,186 @@
+package com.eralp.configuration.security.opaque;
+
+import com.eralp.configuration.invalidation.InvalidationEvent;
+import com.eralp.configuration.security.jwt.TokenDigest;
+import com.eralp.entities.enums.Role;
+import com.eralp.repositories.TokenRepository;
+import com.eralp.repositories.projections.TokenSession;
+import com.eralp.repositories.projections.UserPrincipal;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the MAC check, restoring and invalidation of the {@link OpaqueTokenStore}.
+ *
+ * @author Eralp Nitelik
+ */
+class OpaqueTokenStoreTest {
+    private static final String USER_ID = "user";
+
+    private final TokenRepository tokenRepository = mock(TokenRepository.class);
+    private final OpaqueTokenStore opaqueTokenStore = new OpaqueTokenStore(
+            tokenRepository,
+            "test-secret",
+            Duration.ofDays(1),
+            Duration.ofMinutes(1)
+    );
+
+    @Test
+    void generatesOpaqueTokens() {
+        String token = opaqueTokenStore.generate();
+
+        assertThat(OpaqueTokenStore.isOpaque(token)).isTrue();
+        assertThat(token).isNotEqualTo(opaqueTokenStore.generate());
+    }
+
+    @Test
+    void rejectsTokensWithAWrongMacWithoutAQuery() {
+        String token = opaqueTokenStore.generate();
+        String forged = token.substring(0, token.length() - 1) + (token.endsWith("A") ? "B" : "A");
+
+        assertThat(opaqueTokenStore.find(forged)).isNull();
+        assertThat(opaqueTokenStore.findAll(List.of(forged))).isEmpty();
+        verify(tokenRepository, never()).findSessionByDigest(anyString());
+        verify(tokenRepository, never()).findSessionsByDigestIn(anyCollection());
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherSecretWithoutAQuery() {
+        String token = new OpaqueTokenStore(tokenRepository, "other-secret", Duration.ofDays(1), Duration.ofMinutes(1)).generate();
+
+        assertThat(opaqueTokenStore.find(token)).isNull();
+        verify(tokenRepository, never()).findSessionByDigest(anyString());
+    }
+
+    @Test
+    void remembersMisses() {
+        String token = opaqueTokenStore.generate();
+        when(tokenRepository.findSessionByDigest(anyString())).thenReturn(Optional.empty());
+
+        assertThat(opaqueTokenStore.find(token)).isNull();
+        assertThat(opaqueTokenStore.find(token)).isNull();
+        verify(tokenRepository, times(1)).findSessionByDigest(TokenDigest.of(token));
+    }
+
+    @Test
+    void restoresSessionsFromTheDatabaseOnce() {
+        String token = opaqueTokenStore.generate();
+        when(tokenRepository.findSessionByDigest(TokenDigest.of(token))).thenReturn(Optional.of(sessionOf(token)));
+
+        OpaqueSession session = opaqueTokenStore.find(token);
+
+        assertThat(session.principal().id()).isEqualTo(USER_ID);
+        assertThat(session.tokenDigest()).isEqualTo(TokenDigest.of(token));
+        assertThat(opaqueTokenStore.find(token)).isEqualTo(session);
+        assertThat(opaqueTokenStore.findInMemory(token)).isEqualTo(session);
+        verify(tokenRepository, times(1)).findSessionByDigest(any());
+    }
+
+    @Test
+    void restoresSessionsOfManyTokensWithOneQuery() {
+        String known = opaqueTokenStore.generate();
+        String unknown = opaqueTokenStore.generate();
+        String missing = opaqueTokenStore.generate();
+        when(tokenRepository.findSessionsByDigestIn(anyCollection())).thenReturn(List.of(sessionOf(unknown)));
+        opaqueTokenStore.put(known, TokenDigest.of(known), principal(), opaqueTokenStore.generation());
+
+        assertThat(opaqueTokenStore.findAll(List.of(known, unknown, missing))).containsOnlyKeys(known, unknown);
+        assertThat(opaqueTokenStore.findInMemory(unknown)).isNotNull();
+        verify(tokenRepository).findSessionsByDigestIn(Set.of(TokenDigest.of(unknown), TokenDigest.of(missing)));
+    }
+
+    @Test
+    void doesNotStoreSessionsRevokedWhileTheyAreRestored() {
+        String token = opaqueTokenStore.generate();
+        when(tokenRepository.findSessionByDigest(TokenDigest.of(token))).thenAnswer(invocation -> {
+            opaqueTokenStore.onInvalidation(InvalidationEvent.tokensRevoked(USER_ID));
+            return Optional.of(sessionOf(token));
+        });
+
+        assertThat(opaqueTokenStore.find(token)).isNotNull();
+        assertThat(opaqueTokenStore.findInMemory(token)).isNull();
+    }
+
+    @Test
+    void doesNotStoreSessionsLoggedOutWhileTheyAreRestored() {
+        String token = opaqueTokenStore.generate();
+        when(tokenRepository.findSessionsByDigestIn(anyCollection())).thenAnswer(invocation -> {
+            opaqueTokenStore.onInvalidation(InvalidationEvent.tokenLoggedOut(TokenDigest.of(token)));
+            return List.of(sessionOf(token));
+        });
+
+        assertThat(opaqueTokenStore.findAll(List.of(token))).containsKey(token);
+        assertThat(opaqueTokenStore.findInMemory(token)).isNull();
+    }
+
+    @Test
+    void doesNotStoreIssuedSessionsAfterAnInvalidation() {
+        String token = opaqueTokenStore.generate();
+        long generation = opaqueTokenStore.generation();
+        opaqueTokenStore.removeUser(USER_ID);
+
+        assertThat(opaqueTokenStore.put(token, TokenDigest.of(token), principal(), generation)).isFalse();
+        assertThat(opaqueTokenStore.findInMemory(token)).isNull();
+    }
+
+    @Test
+    void removesLoggedOutSessions() {
+        String token = put();
+        String other = put();
+
+        opaqueTokenStore.onInvalidation(InvalidationEvent.tokenLoggedOut(TokenDigest.of(token)));
+
+        assertThat(opaqueTokenStore.findInMemory(token)).isNull();
+        assertThat(opaqueTokenStore.findInMemory(other)).isNotNull();
+    }
+
+    @Test
+    void removesEverySessionOfRevokedUsers() {
+        String token = put();
+        String other = put();
+
+        opaqueTokenStore.onInvalidation(InvalidationEvent.tokensRevoked(List.of("another-user", USER_ID)));
+
+        assertThat(opaqueTokenStore.findInMemory(token)).isNull();
+        assertThat(opaqueTokenStore.findInMemory(other)).isNull();
+        assertThat(opaqueTokenStore.size()).isZero();
+    }
+
+    @Test
+    void removesEverySessionOnAFullInvalidation() {
+        put();
+
+        opaqueTokenStore.onInvalidation(InvalidationEvent.all());
+
+        assertThat(opaqueTokenStore.size()).isZero();
+    }
+
+    private String put() {
+        String token = opaqueTokenStore.generate();
+        assertThat(opaqueTokenStore.put(token, TokenDigest.of(token), principal(), opaqueTokenStore.generation())).isTrue();
+        return token;
+    }
+
+    private static UserPrincipal principal() {
+        return new UserPrincipal(USER_ID, "user@example.com", Set.of(Role.USER));
+    }
+
+    private static TokenSession sessionOf(String token) {
+        return new TokenSession(TokenDigest.of(token), USER_ID, "user@example.com", Set.of(Role.USER), new Date());
+    }
+}
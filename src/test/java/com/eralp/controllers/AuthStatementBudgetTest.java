@@ -0,0 +1,56 @@
+package com.eralp.controllers;
+
+import com.eralp.support.SqlStatementBudget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the number of SQL statements of the authentication hot paths against regressions such as N+1 queries.
+ *
+ * @author Eralp Nitelik
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthStatementBudgetTest {
+    private static final String CREDENTIALS = "{\"email\":\"budget@eralp.com\",\"password\":\"budget-password\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void authenticationStaysWithinStatementBudget() throws Exception {
+        // Lookup of the email and insert of the user.
+        SqlStatementBudget.assertAtMost(2, "POST /auth/register", () -> mockMvc.perform(post("/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CREDENTIALS))
+                .andExpect(status().isOk()));
+
+        // Lookup of the user, revocation of the previous tokens and insert of the new token.
+        MvcResult login = SqlStatementBudget.assertAtMost(4, "POST /auth/login", () -> mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CREDENTIALS))
+                .andExpect(status().isOk())
+                .andReturn());
+        String token = objectMapper.readTree(login.getResponse().getContentAsString()).path("data").path("token").asText();
+
+        // Lookup of the principal and of the token status.
+        SqlStatementBudget.assertAtMost(2, "GET /test/user", () -> mockMvc.perform(get("/test/user")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk()));
+    }
+}
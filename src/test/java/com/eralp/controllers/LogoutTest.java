@@ -0,0 +1,74 @@
+package com.eralp.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that tokens can not be used after they are logged out, either one by one or all sessions of a user at once.
+ *
+ * @author Eralp Nitelik
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LogoutTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void rejectsLoggedOutTokens() throws Exception {
+        String token = registerAndLogin("logout@eralp.com");
+
+        mockMvc.perform(post("/auth/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/test/user").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void rejectsTokensOfEverySessionAfterLogoutAll() throws Exception {
+        String token = registerAndLogin("logout-all@eralp.com");
+
+        mockMvc.perform(post("/sessions/logout-all").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.revokedTokens").value(1));
+
+        mockMvc.perform(get("/test/user").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void requiresAuthenticationForLogoutAll() throws Exception {
+        mockMvc.perform(post("/sessions/logout-all"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String registerAndLogin(String email) throws Exception {
+        String credentials = "{\"email\":\"" + email + "\",\"password\":\"logout-password\"}";
+        mockMvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andExpect(status().isOk());
+        MvcResult login = mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(credentials))
+                .andExpect(status().isOk())
+                .andReturn();
+        String token = objectMapper.readTree(login.getResponse().getContentAsString()).path("data").path("token").asText();
+        mockMvc.perform(get("/test/user").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        return token;
+    }
+}
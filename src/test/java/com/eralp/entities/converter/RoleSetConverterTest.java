@@ -0,0 +1,37 @@
+package com.eralp.entities.converter;
+
+import com.eralp.entities.enums.Role;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the {@link RoleSetConverter} gives every entity its own mutable role set.
+ *
+ * @author Eralp Nitelik
+ */
+class RoleSetConverterTest {
+    private final RoleSetConverter converter = new RoleSetConverter();
+
+    @Test
+    void convertsRolesToTheirMaskAndBack() {
+        int mask = converter.convertToDatabaseColumn(Set.of(Role.values()));
+
+        assertThat(converter.convertToEntityAttribute(mask)).containsExactlyInAnyOrder(Role.values());
+        assertThat(converter.convertToEntityAttribute(null)).isEmpty();
+    }
+
+    @Test
+    void returnsMutableCopies() {
+        Set<Role> first = converter.convertToEntityAttribute(0);
+        Set<Role> second = converter.convertToEntityAttribute(0);
+
+        first.add(Role.values()[0]);
+
+        assertThat(first).containsExactly(Role.values()[0]);
+        assertThat(second).isEmpty();
+        assertThat(RoleMask.toRoles(0)).isEmpty();
+    }
+}
@@ -0,0 +1,33 @@
+package com.eralp.repositories.base;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the archived columns of every {@link ArchiveTable} match the columns Hibernate creates for its hot table.
+ *
+ * @author Eralp Nitelik
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ArchiveTableTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @EnumSource(ArchiveTable.class)
+    void archivesEveryColumnOfTheHotTable(ArchiveTable archive) {
+        List<String> columns = jdbcTemplate.queryForList(
+                "SELECT column_name FROM information_schema.columns WHERE table_name = ?", String.class, archive.table());
+
+        assertThat(archive.columns()).containsExactlyInAnyOrderElementsOf(columns);
+    }
+}
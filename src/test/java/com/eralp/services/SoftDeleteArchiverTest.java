@@ -0,0 +1,146 @@
+package com.eralp.services;
+
+import com.eralp.entities.ApiKey;
+import com.eralp.entities.Token;
+import com.eralp.entities.User;
+import com.eralp.entities.enums.Role;
+import com.eralp.entities.enums.TokenType;
+import com.eralp.repositories.ApiKeyRepository;
+import com.eralp.repositories.TokenRepository;
+import com.eralp.repositories.UserRepository;
+import com.eralp.repositories.base.ArchiveTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the {@link SoftDeleteArchiver} moves expired deleted users together with the rows that reference them.
+ *
+ * @author Eralp Nitelik
+ */
+@SpringBootTest(properties = {"archive.enabled=true", "archive.retention=1d", "archive.batch-size=1", "archive.pause=0s"})
+@ActiveProfiles("test")
+class SoftDeleteArchiverTest {
+    @Autowired
+    private SoftDeleteArchiver softDeleteArchiver;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private ApiKeyRepository apiKeyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /*
+        The test profile does not run schema.sql, archive tables are created from the hot tables instead.
+     */
+    @BeforeEach
+    void createArchiveTables() {
+        for (ArchiveTable archive : ArchiveTable.values()) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s AS SELECT %s, CURRENT_TIMESTAMP AS archived_at FROM %s WITH NO DATA"
+                    .formatted(archive.archive(), archive.columnList(), archive.table()));
+        }
+    }
+
+    @Test
+    void archivesDeletedUsersTogetherWithTheirTokensAndApiKeys() {
+        User user = save("archived-owner@eralp.com");
+        String token = saveToken(user);
+        String apiKey = saveApiKey(user);
+        delete("users", user.getId(), Duration.ofDays(2));
+
+        softDeleteArchiver.archive();
+
+        assertMoved(ArchiveTable.USERS, user.getId());
+        assertMoved(ArchiveTable.TOKENS, token);
+        assertMoved(ArchiveTable.API_KEYS, apiKey);
+    }
+
+    @Test
+    void keepsUsersThatWereDeletedWithinTheRetentionPeriod() {
+        User user = save("recent-owner@eralp.com");
+        String apiKey = saveApiKey(user);
+        delete("users", user.getId(), Duration.ofHours(1));
+
+        softDeleteArchiver.archive();
+
+        assertKept(ArchiveTable.USERS, user.getId());
+        assertKept(ArchiveTable.API_KEYS, apiKey);
+    }
+
+    @Test
+    void archivesDeletedApiKeysOfActiveUsers() {
+        User user = save("active-owner@eralp.com");
+        String deleted = saveApiKey(user);
+        String active = saveApiKey(user);
+        delete("api_keys", deleted, Duration.ofDays(2));
+
+        softDeleteArchiver.archive();
+
+        assertMoved(ArchiveTable.API_KEYS, deleted);
+        assertKept(ArchiveTable.API_KEYS, active);
+        assertKept(ArchiveTable.USERS, user.getId());
+    }
+
+    private User save(String email) {
+        return userRepository.save(User.builder()
+                .email(email)
+                .password("password")
+                .roles(Set.of(Role.USER))
+                .build());
+    }
+
+    private String saveToken(User user) {
+        return tokenRepository.save(Token.builder()
+                .tokenDigest(UUID.randomUUID().toString())
+                .user(user)
+                .tokenType(TokenType.OPAQUE)
+                .loggedOut(false)
+                .revoked(false)
+                .build()).getId();
+    }
+
+    private String saveApiKey(User user) {
+        return apiKeyRepository.save(ApiKey.builder()
+                .name("archiver")
+                .prefix(UUID.randomUUID().toString().substring(0, 16))
+                .digest("0".repeat(64))
+                .user(user)
+                .build()).getId();
+    }
+
+    private void delete(String table, String id, Duration ago) {
+        jdbcTemplate.update("UPDATE %s SET state = 'DELETED', updated_at = ? WHERE id = ?".formatted(table),
+                Timestamp.from(Instant.now().minus(ago)), id);
+    }
+
+    private void assertMoved(ArchiveTable archive, String id) {
+        assertThat(count(archive.table(), id)).isZero();
+        assertThat(count(archive.archive(), id)).isOne();
+    }
+
+    private void assertKept(ArchiveTable archive, String id) {
+        assertThat(count(archive.table(), id)).isOne();
+        assertThat(count(archive.archive(), id)).isZero();
+    }
+
+    private int count(String table, String id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM %s WHERE id = ?".formatted(table), Integer.class, id);
+    }
+}
@@ -0,0 +1,56 @@
+package com.eralp.support;
+
+import com.eralp.configuration.sql.SqlStatementSnapshot;
+import com.eralp.configuration.sql.SqlStatementStats;
+
+/**
+ * Asserts how many SQL statements an action executes, e.g. a request performed with MockMvc.
+ * Statements are counted on the calling thread, so the action must not hand its work over to other threads.
+ * <pre>
+ * SqlStatementBudget.assertAtMost(2, "GET /test/user", () -&gt; mockMvc.perform(get("/test/user")));
+ * </pre>
+ *
+ * @author Eralp Nitelik
+ */
+public final class SqlStatementBudget {
+    private SqlStatementBudget() {
+    }
+
+    /**
+     * Runs the action and fails if it executed more statements than the budget.
+     *
+     * @param budget      maximum number of statements
+     * @param description what the action is, used in the failure message
+     * @param action      the action to run
+     * @return the result of the action
+     * @throws Exception if the action throws
+     */
+    public static <T> T assertAtMost(int budget, String description, Action<T> action) throws Exception {
+        SqlStatementSnapshot start = SqlStatementStats.snapshot();
+        T result = action.run();
+        SqlStatementSnapshot statements = SqlStatementStats.snapshot().since(start);
+        if (statements.count() > budget) {
+            throw new AssertionError(description + " executed " + statements.count()
+                    + " SQL statements, at most " + budget + " are allowed.");
+        }
+        return result;
+    }
+
+    /**
+     * Runs the action and returns the statements it executed.
+     *
+     * @param action the action to run
+     * @return the {@link SqlStatementSnapshot} of the action
+     * @throws Exception if the action throws
+     */
+    public static SqlStatementSnapshot count(Action<?> action) throws Exception {
+        SqlStatementSnapshot start = SqlStatementStats.snapshot();
+        action.run();
+        return SqlStatementStats.snapshot().since(start);
+    }
+
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws Exception;
+    }
+}